@@ -0,0 +1,39 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * The augmentation phase from a Karp-Sipser seed, one solver per trial so its workspace is
+ * reused across invocations like in a long running process. "default" is what
+ * MaximumMatching picks: Hopcroft-Karp on bipartite graphs, Edmonds otherwise.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AugmentBenchmark extends GraphState {
+    @Param({"default", "edmonds", "multipath"})
+    public String solver;
+
+    MatchingSolver engine;
+    int[] seed;
+
+    @Setup
+    public void prepare() {
+        buildGraph();
+        engine = solver.equals("default") ? MaximumMatching.defaultSolver(graph) : MaximumMatching.solverFor(solver);
+        seed = seededMatching();
+    }
+
+    @Benchmark
+    public int augment() {
+        int[] mate = Arrays.copyOf(seed, seed.length);
+        return engine.solve(graph, mate);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import java.util.Random;
+
+/**
+ * Deterministic graphs of about numEdges edges for the benchmarks. The random families come
+ * from {@link GraphGenerator}, regular graphs and grids are built here.
+ */
+public class GraphFamilies {
+    public static final String[] NAMES = {"gnp", "power-law", "planted", "regular", "grid", "bipartite", "blossom"};
+
+    /**
+     * @param family gnp: uniform random edges, average degree 6; power-law: Chung-Lu with
+     *               exponent 2.5; planted: a hidden perfect matching in noise; regular: random
+     *               3-regular; grid: square grid; bipartite: random edges between two halves;
+     *               blossom: chain of 5-cycles with chords closing nested odd cycles
+     */
+    public static Graph build(String family, int numEdges, long seed) {
+        switch (family) {
+            case "gnp":
+                return new GraphGenerator("uniform", Math.max(2, numEdges / 3), 6, seed).generate();
+            case "power-law":
+            case "planted":
+            case "bipartite":
+                return new GraphGenerator(family, Math.max(2, numEdges / 3), 6, seed).generate();
+            case "blossom":
+                // 7 edges per 5-cycle
+                return new GraphGenerator(family, Math.max(5, numEdges * 5 / 7), 0, seed).generate();
+            case "regular":
+                return regular(2 * numEdges / 3, 3, new Random(seed));
+            case "grid":
+                return grid((int) Math.max(2, Math.sqrt(numEdges / 2.0)));
+            default:
+                throw new IllegalArgumentException("Unknown graph family " + family);
+        }
+    }
+
+    /**
+     * Configuration model, the rare self loops and parallel edges are kept or dropped as the
+     * builder does
+     */
+    static Graph regular(int n, int degree, Random random) {
+        n += (n * degree) % 2; // n * degree must be even
+        int[] stubs = new int[n * degree];
+        for (int i = 0; i < stubs.length; i++) {
+            stubs[i] = 1 + i / degree;
+        }
+        for (int i = stubs.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = stubs[i];
+            stubs[i] = stubs[j];
+            stubs[j] = swap;
+        }
+
+        Graph.Builder builder = new Graph.Builder(n, stubs.length / 2);
+        for (int i = 0; i + 1 < stubs.length; i += 2) {
+            builder.addEdge(stubs[i], stubs[i + 1], 1 + random.nextInt(100));
+        }
+        return builder.build();
+    }
+
+    static Graph grid(int side) {
+        Graph.Builder builder = new Graph.Builder(side * side, 2 * side * side);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = r * side + c + 1;
+                if (c + 1 < side) {
+                    builder.addEdge(v, v + 1, 1);
+                }
+                if (r + 1 < side) {
+                    builder.addEdge(v, v + side, 1);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
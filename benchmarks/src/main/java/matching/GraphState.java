@@ -0,0 +1,37 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Graph family and size shared by the benchmarks, add -p edges=10000000 for the large runs.
+ * JMH does not order setup methods along the class hierarchy, so every benchmark calls
+ * buildGraph() first in its own setup.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+    @Param({"gnp", "power-law", "planted", "regular", "grid", "bipartite", "blossom"})
+    public String family;
+
+    @Param({"1000", "100000"})
+    public int edges;
+
+    Graph graph;
+
+    void buildGraph() {
+        graph = GraphFamilies.build(family, edges, 42);
+    }
+
+    /**
+     * Mate array seeded by Karp-Sipser, the usual input of the augmentation phase
+     */
+    int[] seededMatching() {
+        int[] mate = new int[graph.numVertices + 1];
+        InitialMatching.KARP_SIPSER.match(graph, mate);
+        return mate;
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * The initial heuristics from an empty matching
+ */
+@BenchmarkMode(Mode.Throughput)
+public class InitialMatchingBenchmark extends GraphState {
+    @Param({"greedy", "karp-sipser", "min-degree"})
+    public String heuristic;
+
+    @Setup
+    public void prepare() {
+        buildGraph();
+    }
+
+    @Benchmark
+    public int[] match() {
+        int[] mate = new int[graph.numVertices + 1];
+        InitialMatching.forName(heuristic).match(graph, mate);
+        return mate;
+    }
+}
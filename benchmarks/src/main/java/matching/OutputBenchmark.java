@@ -0,0 +1,57 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Writing a maximum matching in every output format to a stream that drops the bytes. The
+ * writer and its buffer are made once, so only the formatting is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class OutputBenchmark extends GraphState {
+    @Param({"text", "pairs", "binary"})
+    public String format;
+
+    int[] mate;
+    MatchingWriter.Format outputFormat;
+    MatchingWriter writer;
+    // the sink of the running invocation
+    Blackhole blackhole;
+
+    @Setup
+    public void solve() {
+        buildGraph();
+        mate = seededMatching();
+        MaximumMatching.defaultSolver(graph).solve(graph, mate);
+
+        outputFormat = MatchingWriter.Format.forName(format);
+        writer = new MatchingWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        });
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) throws IOException {
+        this.blackhole = blackhole;
+        writer.reset();
+        writer.write(mate, graph.numVertices, outputFormat);
+    }
+}
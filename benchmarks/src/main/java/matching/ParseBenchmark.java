@@ -0,0 +1,59 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Loading a graph: the text edge list from memory and the binary CSR file from disk
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ParseBenchmark extends GraphState {
+    byte[] text;
+    File binary;
+
+    @Setup
+    public void writeInputs() throws IOException {
+        buildGraph();
+        StringBuilder builder = new StringBuilder();
+        builder.append(graph.numVertices).append(' ').append(graph.numEdges).append('\n');
+        for (int u = 1; u <= graph.numVertices; u++) {
+            for (int e = graph.offset[u]; e < graph.offset[u + 1]; e++) {
+                if (graph.target[e] > u) {
+                    builder.append(u).append(' ').append(graph.target[e]).append(' ')
+                            .append(graph.weight[e]).append('\n');
+                }
+            }
+        }
+        text = builder.toString().getBytes(StandardCharsets.US_ASCII);
+
+        binary = File.createTempFile("graph", ".bin");
+        BinaryGraphFile.write(graph, binary.getPath());
+    }
+
+    @TearDown
+    public void deleteInputs() {
+        binary.delete();
+    }
+
+    @Benchmark
+    public Graph parseText() throws IOException {
+        return EdgeListParser.parse(Channels.newChannel(new ByteArrayInputStream(text)));
+    }
+
+    @Benchmark
+    public Graph loadBinary() throws IOException {
+        return BinaryGraphFile.read(binary.getPath());
+    }
+}
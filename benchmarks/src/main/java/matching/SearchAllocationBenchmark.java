@@ -0,0 +1,42 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Allocation of the blossom search once its workspace is warm: the mate array is copied
+ * into a buffer of the trial, so gc.alloc.rate.norm of the gc profiler is what the solver
+ * itself allocates per solve, which should be 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+public class SearchAllocationBenchmark extends GraphState {
+    @Param({"edmonds", "multipath"})
+    public String solver;
+
+    MatchingSolver engine;
+    int[] seed;
+    int[] mate;
+
+    @Setup
+    public void prepare() {
+        buildGraph();
+        engine = MaximumMatching.solverFor(solver);
+        seed = seededMatching();
+        mate = new int[seed.length];
+        // size the workspace before the first measured call
+        System.arraycopy(seed, 0, mate, 0, seed.length);
+        engine.solve(graph, mate);
+    }
+
+    @Benchmark
+    public int search() {
+        System.arraycopy(seed, 0, mate, 0, seed.length);
+        return engine.solve(graph, mate);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Both {@link ApproximateMatching} modes must give a maximal matching of at least half the
+ * optimum
+ */
+public class ApproximateMatchingTest {
+    static final int TRIALS = 300;
+
+    /**
+     * No edge of more than minWeight may join two free nodes
+     */
+    static void assertMaximal(Graph graph, int[] mate, int minWeight, String trial) {
+        for (int u = 1; u <= graph.numVertices; u++) {
+            for (int e = graph.offset[u]; e < graph.offset[u + 1]; e++) {
+                int v = graph.target[e];
+                if (v != u && mate[u] == 0 && mate[v] == 0 && graph.weight[e] > minWeight) {
+                    fail(trial + ": edge (" + u + ", " + v + ") joins two free nodes");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cardinality() {
+        Random random = new Random(17);
+        ApproximateMatching approximate = new ApproximateMatching(false, 3);
+        try {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                Graph graph = trial % 3 == 0 ? SmallGraphs.randomBipartite(random) : SmallGraphs.random(random);
+                int[] mate = new int[graph.numVertices + 1];
+                int matched = approximate.match(graph, mate);
+
+                String name = "trial " + trial;
+                assertEquals(name, matched, SmallGraphs.assertMatching(graph, mate));
+                assertMaximal(graph, mate, Integer.MIN_VALUE, name);
+                assertTrue(name, 2 * matched >= SmallGraphs.maximumMatched(graph));
+            }
+        } finally {
+            approximate.shutdown();
+        }
+    }
+
+    @Test
+    public void cardinalityExtendsMatching() {
+        Random random = new Random(18);
+        ApproximateMatching approximate = new ApproximateMatching(false, 2);
+        try {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                Graph graph = SmallGraphs.random(random);
+                int[] mate = new int[graph.numVertices + 1];
+                InitialMatching.GREEDY.match(graph, mate);
+                int[] start = mate.clone();
+                approximate.match(graph, mate);
+
+                SmallGraphs.assertMatching(graph, mate);
+                for (int v = 1; v <= graph.numVertices; v++) {
+                    if (start[v] != 0) {
+                        assertEquals("trial " + trial, start[v], mate[v]);
+                    }
+                }
+            }
+        } finally {
+            approximate.shutdown();
+        }
+    }
+
+    @Test
+    public void weighted() {
+        Random random = new Random(19);
+        ApproximateMatching approximate = new ApproximateMatching(true, 3);
+        try {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                Graph graph = SmallGraphs.random(random);
+                int[] mate = new int[graph.numVertices + 1];
+                approximate.match(graph, mate);
+
+                String name = "trial " + trial;
+                SmallGraphs.assertMatching(graph, mate);
+                assertMaximal(graph, mate, 0, name);
+                assertTrue(name, 2 * WeightedMatchingSolver.weight(graph, mate) >= SmallGraphs.optimum(graph, 0, true));
+            }
+        } finally {
+            approximate.shutdown();
+        }
+    }
+
+    @Test
+    public void weightedIndependentOfThreads() {
+        Random random = new Random(20);
+        ApproximateMatching serial = new ApproximateMatching(true, 1);
+        ApproximateMatching parallel = new ApproximateMatching(true, 4);
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                Graph graph = new GraphGenerator("uniform", 2000 + random.nextInt(2000), 6, trial).generate();
+                int[] expected = new int[graph.numVertices + 1];
+                int[] mate = new int[graph.numVertices + 1];
+                serial.match(graph, expected);
+                parallel.match(graph, mate);
+                assertArrayEquals("trial " + trial, expected, mate);
+            }
+        } finally {
+            serial.shutdown();
+            parallel.shutdown();
+        }
+    }
+}
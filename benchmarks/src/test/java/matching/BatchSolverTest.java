@@ -0,0 +1,50 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link BatchSolver} on a stream of small graphs, every one must reach its handler maximum
+ */
+public class BatchSolverTest {
+    static final int TRIALS = 300;
+
+    @Test
+    public void batch() throws InterruptedException {
+        Random random = new Random(10);
+        List<Graph> graphs = new ArrayList<>();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            graphs.add(SmallGraphs.random(random));
+        }
+
+        final int[] matched = new int[TRIALS];
+        Arrays.fill(matched, -1);
+        BatchSolver batch = new BatchSolver(null, 3);
+        try {
+            batch.solve(graphs.iterator(), new BatchSolver.ResultHandler() {
+                @Override
+                public void solved(int index, Graph graph, int[] mate, int numMatched) {
+                    assertEquals(numMatched, SmallGraphs.assertMatching(graph, mate));
+                    synchronized (matched) {
+                        matched[index] = numMatched;
+                    }
+                }
+            });
+        } finally {
+            batch.shutdown();
+        }
+
+        for (int trial = 0; trial < TRIALS; trial++) {
+            assertEquals("graph " + trial, SmallGraphs.maximumMatched(graphs.get(trial)), matched[trial]);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips of the MMGR graph file and the files it rejects
+ */
+public class BinaryGraphFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.numVertices, actual.numVertices);
+        assertEquals(expected.numEdges, actual.numEdges);
+        assertArrayEquals(expected.offset, actual.offset);
+        assertArrayEquals(expected.target, actual.target);
+        assertArrayEquals(expected.weight, actual.weight);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 50; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            File file = folder.newFile();
+            BinaryGraphFile.write(graph, file.getPath());
+
+            assertTrue(BinaryGraphFile.isBinary(file.getPath()));
+            assertSameGraph(graph, BinaryGraphFile.read(file.getPath()));
+        }
+    }
+
+    @Test
+    public void roundTripWithoutEdges() throws IOException {
+        Graph graph = new Graph.Builder(5).build();
+        File file = folder.newFile();
+        BinaryGraphFile.write(graph, file.getPath());
+        assertSameGraph(graph, BinaryGraphFile.read(file.getPath()));
+    }
+
+    @Test
+    public void textIsNotBinary() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "2 1\n1 2 1\n".getBytes("US-ASCII"));
+        assertFalse(BinaryGraphFile.isBinary(file.getPath()));
+
+        File empty = folder.newFile();
+        assertFalse(BinaryGraphFile.isBinary(empty.getPath()));
+        assertRejected(empty);
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        File file = folder.newFile();
+        BinaryGraphFile.write(SmallGraphs.random(new Random(2)), file.getPath());
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 4);
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void unknownVersion() throws IOException {
+        File file = folder.newFile();
+        BinaryGraphFile.write(SmallGraphs.random(new Random(3)), file.getPath());
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(4);
+            raw.write(new byte[]{9, 0, 0, 0});
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void negativeVertexCount() throws IOException {
+        File file = folder.newFile();
+        BinaryGraphFile.write(SmallGraphs.random(new Random(4)), file.getPath());
+        putInt(file, 8, -3);
+        assertRejectedAt(file, 8);
+    }
+
+    @Test
+    public void offsetsGoingDown() throws IOException {
+        Graph graph = path(4);
+        File file = folder.newFile();
+        BinaryGraphFile.write(graph, file.getPath());
+        // offset of vertex 3 below that of vertex 2
+        putInt(file, 16 + 4 * 3, graph.offset[2] - 1);
+        assertRejectedAt(file, 16 + 4 * 3);
+    }
+
+    @Test
+    public void targetOutOfRange() throws IOException {
+        Graph graph = path(4);
+        long targets = 16 + 4 * (graph.numVertices + 2);
+        for (int bad : new int[]{0, graph.numVertices + 1, -1}) {
+            File file = folder.newFile();
+            BinaryGraphFile.write(graph, file.getPath());
+            putInt(file, targets + 4 * 5, bad);
+            assertRejectedAt(file, targets + 4 * 5);
+        }
+    }
+
+    /**
+     * 1 - 2 - ... - n
+     */
+    static Graph path(int n) {
+        Graph.Builder builder = new Graph.Builder(n);
+        for (int v = 1; v < n; v++) {
+            builder.addEdge(v, v + 1, v);
+        }
+        return builder.build();
+    }
+
+    static void putInt(File file, long position, int value) throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(position);
+            raw.write(new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24)});
+        }
+    }
+
+    /**
+     * The file must be rejected with the byte position of the bad value
+     */
+    static void assertRejectedAt(File file, long position) {
+        try {
+            BinaryGraphFile.read(file.getPath());
+            fail(file + " was read");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().endsWith("at byte " + position));
+        }
+    }
+
+    static void assertRejected(File file) {
+        try {
+            BinaryGraphFile.read(file.getPath());
+            fail(file + " was read");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MMCK snapshots: round trip, resume and the files that must not be resumed from
+ */
+public class CheckpointTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Checkpoint checkpoint() {
+        return new Checkpoint(new File(folder.getRoot(), "matching.ck").getPath(), 0);
+    }
+
+    static Graph path(int numVertices) {
+        Graph.Builder builder = new Graph.Builder(numVertices);
+        for (int v = 1; v < numVertices; v++) {
+            builder.addEdge(v, v + 1, 1);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Graph graph = path(5);
+        int[] mate = {0, 2, 1, 4, 3, 0};
+        Checkpoint written = checkpoint();
+        assertFalse(written.exists());
+        written.phaseDone(graph, mate);
+        written.phaseDone(graph, mate);
+        written.write(graph, mate);
+
+        assertTrue(written.exists());
+        assertFalse(new File(folder.getRoot(), "matching.ck.tmp").exists());
+        Checkpoint read = checkpoint();
+        assertArrayEquals(mate, read.read(graph));
+        assertEquals(2, read.getPhases());
+    }
+
+    @Test
+    public void longerMateArray() throws IOException {
+        Graph graph = path(3);
+        Checkpoint checkpoint = checkpoint();
+        checkpoint.write(graph, new int[]{0, 2, 1, 0, 0, 0, 0});
+        assertArrayEquals(new int[]{0, 2, 1, 0}, checkpoint.read(graph));
+    }
+
+    @Test
+    public void resume() throws IOException {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 50; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            Checkpoint checkpoint = new Checkpoint(folder.newFile().getPath(), 0);
+            EdmondsSolver solver = new EdmondsSolver();
+            Checkpoint.attach(solver, checkpoint);
+            int matched = solver.solve(graph, mate);
+
+            if (checkpoint.getNumWritten() > 0) {
+                int[] resumed = checkpoint.read(graph);
+                SmallGraphs.assertMatching(graph, resumed);
+                assertEquals("trial " + trial, matched, new EdmondsSolver().solve(graph, resumed));
+            }
+        }
+    }
+
+    @Test
+    public void resumeWeighted() throws IOException {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 50; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            Checkpoint checkpoint = new Checkpoint(folder.newFile().getPath(), 0);
+            WeightedMatchingSolver solver = new WeightedMatchingSolver();
+            Checkpoint.attach(solver, checkpoint);
+            solver.solve(graph, mate);
+
+            if (checkpoint.getNumWritten() > 0) {
+                int[] resumed = checkpoint.read(graph);
+                SmallGraphs.assertMatching(graph, resumed);
+                new WeightedMatchingSolver().solve(graph, resumed);
+                assertEquals("trial " + trial, WeightedMatchingSolver.weight(graph, mate),
+                        WeightedMatchingSolver.weight(graph, resumed));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void solverWithoutPhases() {
+        Checkpoint.attach(new MatchingSolver() {
+            @Override
+            public int solve(Graph graph, int[] mate) {
+                return 0;
+            }
+        }, checkpoint());
+    }
+
+    @Test
+    public void otherGraph() throws IOException {
+        Checkpoint checkpoint = checkpoint();
+        checkpoint.write(path(4), new int[]{0, 2, 1, 4, 3});
+        assertRejected(checkpoint, path(5));
+
+        // same vertices, other edge count
+        Graph.Builder builder = new Graph.Builder(4);
+        builder.addEdge(1, 2, 1);
+        assertRejected(checkpoint, builder.build());
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        Graph graph = path(4);
+        Checkpoint checkpoint = checkpoint();
+        checkpoint.write(graph, new int[]{0, 2, 1, 4, 3});
+        try (RandomAccessFile raw = new RandomAccessFile(checkpoint.path.toFile(), "rw")) {
+            raw.setLength(raw.length() - 4);
+        }
+        assertRejected(checkpoint, graph);
+    }
+
+    @Test
+    public void notACheckpoint() throws IOException {
+        Graph graph = path(2);
+        Checkpoint checkpoint = checkpoint();
+        Files.write(checkpoint.path, "1 2\n".getBytes("US-ASCII"));
+        assertRejected(checkpoint, graph);
+
+        File matching = folder.newFile();
+        try (OutputStream out = new FileOutputStream(matching)) {
+            new MatchingWriter(out).write(new int[]{0, 2, 1}, 2, MatchingWriter.Format.BINARY);
+        }
+        assertRejected(new Checkpoint(matching.getPath(), 0), graph);
+    }
+
+    static void assertRejected(Checkpoint checkpoint, Graph graph) {
+        try {
+            fail("resumed " + Arrays.toString(checkpoint.read(graph)));
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ComponentSolver} against the brute force optimum, every solver closed after use
+ */
+public class ComponentSolverTest {
+    static final int TRIALS = 300;
+
+    /**
+     * Solve TRIALS random graphs, some of them split into several components
+     */
+    private void check(ComponentSolver solver, long seed) {
+        Random random = new Random(seed);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = solver.solve(graph, mate);
+
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+        }
+    }
+
+    @Test
+    public void defaultSolvers() {
+        try (ComponentSolver solver = new ComponentSolver(null, 2)) {
+            check(solver, 5);
+        }
+    }
+
+    @Test
+    public void multiPath() {
+        try (ComponentSolver solver = new ComponentSolver("multipath", 2)) {
+            check(solver, 6);
+        }
+    }
+
+    @Test
+    public void closeStopsThePool() {
+        ComponentSolver solver = new ComponentSolver(null, 2);
+        solver.close();
+        assertTrue(solver.pool.isShutdown());
+    }
+}
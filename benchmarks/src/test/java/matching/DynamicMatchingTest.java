@@ -0,0 +1,63 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link DynamicMatching} under random updates, the matching must stay maximum after each
+ */
+public class DynamicMatchingTest {
+    @Test
+    public void maximumAfterEveryUpdate() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 50; trial++) {
+            int n = 2 + random.nextInt(SmallGraphs.MAX_VERTICES - 1);
+            DynamicMatching dynamic = new DynamicMatching(n);
+            boolean[][] edge = new boolean[n + 1][n + 1];
+            boolean[] deleted = new boolean[n + 1];
+
+            for (int update = 0; update < 60; update++) {
+                int u = 1 + random.nextInt(n);
+                int v = 1 + random.nextInt(n);
+                if (deleted[u] || deleted[v]) {
+                    continue;
+                }
+                if (random.nextInt(40) == 0) {
+                    dynamic.deleteVertex(u);
+                    deleted[u] = true;
+                    for (int w = 1; w <= n; w++) {
+                        edge[u][w] = edge[w][u] = false;
+                    }
+                } else if (edge[u][v]) {
+                    assertTrue(dynamic.deleteEdge(u, v));
+                    edge[u][v] = edge[v][u] = false;
+                } else {
+                    assertEquals(u != v, dynamic.insertEdge(u, v));
+                    edge[u][v] = edge[v][u] = u != v;
+                }
+
+                Graph.Builder builder = new Graph.Builder(n);
+                int[] mate = new int[n + 1];
+                for (int w = 1; w <= n; w++) {
+                    mate[w] = dynamic.mate(w);
+                    for (int x = w + 1; x <= n; x++) {
+                        if (edge[w][x]) {
+                            builder.addEdge(w, x, 1);
+                        }
+                    }
+                }
+                Graph graph = builder.build();
+                String where = "trial " + trial + " update " + update;
+                assertEquals(where, SmallGraphs.maximumMatched(graph), dynamic.getNumMatched());
+                assertEquals(where, dynamic.getNumMatched(), SmallGraphs.assertMatching(graph, mate));
+            }
+        }
+    }
+}
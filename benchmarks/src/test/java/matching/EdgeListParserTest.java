@@ -0,0 +1,67 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Integers of the text edge list, up to the ends of the int range and past them
+ */
+public class EdgeListParserTest {
+
+    static Graph parse(String text) throws IOException {
+        return EdgeListParser.parse(Channels.newChannel(new ByteArrayInputStream(text.getBytes("US-ASCII"))));
+    }
+
+    static void assertRejected(String text) {
+        try {
+            parse(text);
+            fail("parsed " + text);
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void weights() throws IOException {
+        Graph graph = parse("3 2\n1 2 2147483647\n2 3 -2147483648\n");
+        assertEquals(2, graph.numEdges);
+        assertArrayEquals(new int[]{0, 0, 1, 3, 4}, graph.offset);
+        assertArrayEquals(new int[]{2, 1, 3, 2}, graph.target);
+        assertArrayEquals(new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE},
+                graph.weight);
+    }
+
+    @Test
+    public void overflow() {
+        assertRejected("3 1\n1 2 2147483648\n");
+        assertRejected("3 1\n1 2 -2147483649\n");
+        assertRejected("3 1\n1 12345678901 1\n");
+        assertRejected("3 1\n1 2 9223372036854775808\n");
+        assertRejected("3 1\n1 2 -99999999999999999999999\n");
+        assertRejected("4294967299 1\n1 2 1\n");
+    }
+
+    @Test
+    public void edgeCountIsOnlyAHint() throws IOException {
+        assertEquals(1, parse("2 100\n1 2 1\n").numEdges);
+        assertEquals(2, parse("3 0\n1 2 1\n2 3 1\n").numEdges);
+    }
+
+    @Test
+    public void edgeCountBeyondTheHeap() throws IOException {
+        try {
+            parse("3 5000000000\n1 2 1\n");
+            fail("a heap graph was built for 5000000000 edges");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
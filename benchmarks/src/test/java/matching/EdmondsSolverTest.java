@@ -0,0 +1,31 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link EdmondsSolver} against the brute force optimum of {@link SmallGraphs}
+ */
+public class EdmondsSolverTest {
+    static final int TRIALS = 300;
+
+    @Test
+    public void maximum() {
+        Random random = new Random(1);
+        EdmondsSolver solver = new EdmondsSolver();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = solver.solve(graph, mate);
+
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+        }
+    }
+}
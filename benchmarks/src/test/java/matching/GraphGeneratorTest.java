@@ -0,0 +1,91 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Every family of {@link GraphGenerator}: the same seed gives the same graph, the stream
+ * has the edge count it announces, and the binary form holds the same rows
+ */
+public class GraphGeneratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static GraphGenerator generator(String family, long seed) {
+        return new GraphGenerator(family, 500, 4, seed);
+    }
+
+    static byte[] text(GraphGenerator generator) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeText(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Counts the edges of a stream and checks every one is a pair of vertices
+     */
+    static class EdgeCount implements EdgeListParser.EdgeVisitor {
+        int numVertices;
+        int headerEdges;
+        long numEdges;
+
+        @Override
+        public void header(int numVertices, int numEdges) {
+            this.numVertices = numVertices;
+            this.headerEdges = numEdges;
+        }
+
+        @Override
+        public void edge(int u, int v, int weight) {
+            assertTrue(u + " " + v, u >= 1 && u <= numVertices && v >= 1 && v <= numVertices && u != v);
+            assertTrue("weight " + weight, weight >= 1 && weight <= 100);
+            numEdges++;
+        }
+    }
+
+    @Test
+    public void sameSeedSameGraph() throws IOException {
+        for (String family : GraphGenerator.FAMILIES) {
+            byte[] first = text(generator(family, 7));
+            assertTrue(family, Arrays.equals(first, text(generator(family, 7))));
+            assertFalse(family, Arrays.equals(first, text(generator(family, 8))));
+        }
+    }
+
+    @Test
+    public void announcedEdgeCount() {
+        for (String family : GraphGenerator.FAMILIES) {
+            GraphGenerator generator = generator(family, 3);
+            EdgeCount count = new EdgeCount();
+            generator.generate(count);
+
+            assertEquals(family, generator.getNumVertices(), count.numVertices);
+            assertEquals(family, generator.getNumEdges(), count.headerEdges);
+            assertEquals(family, generator.getNumEdges(), count.numEdges);
+        }
+    }
+
+    @Test
+    public void binaryVersion2() throws IOException {
+        for (String family : GraphGenerator.FAMILIES) {
+            GraphGenerator generator = generator(family, 5);
+            File file = folder.newFile();
+
+            assertEquals(family, generator.getNumEdges(), generator.writeBinary(file.getPath()));
+            OffHeapGraphTest.assertSameRows(generator.generate(), OffHeapGraph.map(file.getPath()));
+        }
+    }
+}
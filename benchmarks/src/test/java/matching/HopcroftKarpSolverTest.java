@@ -0,0 +1,56 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link HopcroftKarpSolver} and the dispatch of bipartite graphs to it, against the brute
+ * force optimum
+ */
+public class HopcroftKarpSolverTest {
+    static final int TRIALS = 300;
+
+    @Test
+    public void maximum() {
+        Random random = new Random(3);
+        // one solver, so the state of a small graph is reused or grown for the next
+        HopcroftKarpSolver solver = new HopcroftKarpSolver();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.randomBipartite(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = solver.solve(graph, mate);
+
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+        }
+    }
+
+    @Test
+    public void defaultSolverOnBipartiteGraphs() {
+        Random random = new Random(4);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.randomBipartite(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = MaximumMatching.defaultSolver(graph).solve(graph, mate);
+
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            SmallGraphs.assertMatching(graph, mate);
+        }
+    }
+
+    @Test
+    public void bipartiteGraphsGoToHopcroftKarp() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.randomBipartite(random);
+            assertTrue("trial " + trial, MaximumMatching.defaultSolver(graph) instanceof HopcroftKarpSolver);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Every {@link InitialMatching} must give a valid matching that the solvers extend to a
+ * maximum one
+ */
+public class InitialMatchingTest {
+    static final int TRIALS = 300;
+
+    @Test
+    public void edmondsFromEveryStart() {
+        Random random = new Random(7);
+        EdmondsSolver solver = new EdmondsSolver();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            for (InitialMatching initial : InitialMatching.values()) {
+                int[] mate = new int[graph.numVertices + 1];
+                initial.match(graph, mate);
+                SmallGraphs.assertMatching(graph, mate);
+                int matched = solver.solve(graph, mate);
+
+                assertEquals(initial + " trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+                SmallGraphs.assertMatching(graph, mate);
+            }
+        }
+    }
+
+    @Test
+    public void validAndNoLargerThanMaximum() {
+        Random random = new Random(8);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int maximum = SmallGraphs.maximumMatched(graph);
+            for (InitialMatching initial : InitialMatching.values()) {
+                int[] mate = new int[graph.numVertices + 1];
+                initial.match(graph, mate);
+                int matched = SmallGraphs.assertMatching(graph, mate);
+                assertTrue(initial + " trial " + trial, matched <= maximum);
+            }
+        }
+    }
+
+    @Test
+    public void forName() {
+        for (InitialMatching initial : InitialMatching.values()) {
+            assertEquals(initial, InitialMatching.forName(initial.name));
+        }
+        assertNull(InitialMatching.forName("no such heuristic"));
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips of the matching through {@link MatchingWriter} and {@link MatchingReader} in
+ * every format, and the files the reader has to cope with
+ */
+public class MatchingFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File write(int[] mate, int numVertices, MatchingWriter.Format format) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            new MatchingWriter(out).write(mate, numVertices, format);
+        }
+        return file;
+    }
+
+    File text(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes("US-ASCII"));
+        return file;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(1);
+        EdmondsSolver solver = new EdmondsSolver();
+        for (int trial = 0; trial < 50; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int n = graph.numVertices;
+            int[] mate = new int[n + 1];
+            solver.solve(graph, mate);
+
+            for (MatchingWriter.Format format : MatchingWriter.Format.values()) {
+                File file = write(mate, n, format);
+                assertArrayEquals(format + " trial " + trial, mate, MatchingReader.read(file.getPath(), n));
+            }
+        }
+    }
+
+    @Test
+    public void textFormats() throws IOException {
+        int[] mate = {0, 3, 0, 1, 10, 0, 0, 0, 0, 0, 4};
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        new MatchingWriter(text).write(mate, 10, MatchingWriter.Format.TEXT);
+        assertEquals("1 3\n2 -\n3 1\n4 10\n5 -\n6 -\n7 -\n8 -\n9 -\n10 4\n", text.toString("US-ASCII"));
+
+        ByteArrayOutputStream pairs = new ByteArrayOutputStream();
+        new MatchingWriter(pairs).write(mate, 10, MatchingWriter.Format.PAIRS);
+        assertEquals("1 3\n4 10\n", pairs.toString("US-ASCII"));
+    }
+
+    @Test
+    public void writeLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatchingWriter writer = new MatchingWriter(out);
+        writer.writeLine(0);
+        writer.writeLine(-17);
+        writer.writeLine(Integer.MAX_VALUE);
+        writer.writeLine(Integer.MIN_VALUE);
+        assertEquals("0\n-17\n2147483647\n-2147483648\n", out.toString("US-ASCII"));
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        assertArrayEquals(new int[4], MatchingReader.read(folder.newFile().getPath(), 3));
+    }
+
+    @Test
+    public void shorterThanMagic() throws IOException {
+        assertArrayEquals(new int[]{0, 2, 1}, MatchingReader.read(text("1 2").getPath(), 2));
+        assertArrayEquals(new int[]{0, 0, 0}, MatchingReader.read(text("MM").getPath(), 2));
+        assertArrayEquals(new int[]{0, 2, 1}, MatchingReader.read(text("1 2\n").getPath(), 2));
+    }
+
+    @Test
+    public void skippedLines() throws IOException {
+        File file = text("1 -\n7\n2 5\r\n\n3 4 5\n6 9\n");
+        assertArrayEquals(new int[]{0, 0, 5, 0, 0, 2, 0}, MatchingReader.read(file.getPath(), 6));
+    }
+
+    @Test
+    public void largerGraph() throws IOException {
+        int[] mate = {0, 4, 3, 2, 1};
+        File file = write(mate, 4, MatchingWriter.Format.BINARY);
+        // pairs beyond the graph are dropped
+        assertArrayEquals(new int[]{0, 0, 3, 2}, MatchingReader.read(file.getPath(), 3));
+        assertArrayEquals(new int[]{0, 4, 3, 2, 1, 0}, MatchingReader.read(file.getPath(), 5));
+    }
+
+    @Test
+    public void truncatedBinary() throws IOException {
+        File file = write(new int[]{0, 2, 1, 0}, 3, MatchingWriter.Format.BINARY);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 1);
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void unknownVersion() throws IOException {
+        File file = write(new int[]{0, 2, 1}, 2, MatchingWriter.Format.BINARY);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(4);
+            raw.write(new byte[]{2, 0, 0, 0});
+        }
+        assertRejected(file);
+    }
+
+    static void assertRejected(File file) {
+        try {
+            MatchingReader.read(file.getPath(), 3);
+            fail(file + " was read");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MatchingVerifier} on maximum matchings of {@link EdmondsSolver} and on one pair less
+ */
+public class MatchingVerifierTest {
+    static final int TRIALS = 300;
+
+    @Test
+    public void verifier() {
+        Random random = new Random(13);
+        MatchingVerifier verifier = new MatchingVerifier();
+        EdmondsSolver solver = new EdmondsSolver();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = solver.solve(graph, mate);
+            assertTrue("trial " + trial + ": " + verifier.getFailure(), verifier.verify(graph, mate));
+            assertEquals(matched, verifier.getNumMatched());
+
+            // one pair less is no longer maximum
+            for (int v = 1; v <= graph.numVertices; v++) {
+                if (mate[v] != 0) {
+                    mate[mate[v]] = 0;
+                    mate[v] = 0;
+                    assertFalse("trial " + trial, verifier.verify(graph, mate));
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MultiPathSolver} against the brute force optimum, and against {@link EdmondsSolver}
+ * on graphs too big for it
+ */
+public class MultiPathSolverTest {
+    static final int TRIALS = 300;
+
+    /**
+     * Sparse G(n, p) with about degree / 2 edges per node, odd cycles of every length
+     */
+    static Graph sparse(Random random, int n, double degree) {
+        Graph.Builder builder = new Graph.Builder(n);
+        for (int u = 1; u <= n; u++) {
+            for (int v = u + 1; v <= n; v++) {
+                if (random.nextDouble() * n < degree) {
+                    builder.addEdge(u, v, 1);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void maximum() {
+        Random random = new Random(2);
+        // one solver, so the state of a small graph is reused or grown for the next
+        MultiPathSolver solver = new MultiPathSolver();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = trial % 3 == 0 ? SmallGraphs.randomBipartite(random) : SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = solver.solve(graph, mate);
+
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+        }
+    }
+
+    @Test
+    public void warmStart() {
+        Random random = new Random(8);
+        MultiPathSolver solver = new MultiPathSolver();
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            for (InitialMatching initial : InitialMatching.values()) {
+                int[] mate = new int[graph.numVertices + 1];
+                initial.match(graph, mate);
+                int matched = solver.solve(graph, mate);
+
+                assertEquals(initial + " trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+                assertEquals(initial + " trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+            }
+        }
+    }
+
+    @Test
+    public void sameAsEdmonds() {
+        Random random = new Random(9);
+        MultiPathSolver solver = new MultiPathSolver();
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 20 + random.nextInt(400);
+            Graph graph = sparse(random, n, 1 + 4 * random.nextDouble());
+
+            int[] expected = new int[n + 1];
+            int[] mate = new int[n + 1];
+            SolverStats stats = new SolverStats();
+            SolverStats.attach(solver, stats);
+            int matched = solver.solve(graph, mate);
+
+            assertEquals("trial " + trial, new EdmondsSolver().solve(graph, expected), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+            // every phase but the last one lengthens the shortest augmenting path
+            assertTrue("trial " + trial + ": " + stats.phases + " phases",
+                    stats.phases <= 2 * Math.sqrt(n) + 2);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Mapping of both versions of the MMGR graph file, and the version 2 conversion
+ */
+public class OffHeapGraphTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Same rows, in any order within a row
+     */
+    static void assertSameRows(Graph expected, OffHeapGraph actual) {
+        assertEquals(expected.numVertices, actual.numVertices);
+        assertEquals(expected.numEdges, actual.getNumEdges());
+        for (int v = 1; v <= expected.numVertices; v++) {
+            assertEquals("degree of " + v, expected.degree(v), actual.degree(v));
+            long[] want = new long[expected.degree(v)];
+            long[] have = new long[want.length];
+            for (int i = 0; i < want.length; i++) {
+                int e = expected.offset[v] + i;
+                long f = actual.offset.get(v) + i;
+                want[i] = (long) expected.target[e] << 32 | expected.weight[e];
+                have[i] = (long) actual.target.get(f) << 32 | actual.weight.get(f);
+            }
+            Arrays.sort(want);
+            Arrays.sort(have);
+            assertArrayEquals("row of " + v, want, have);
+        }
+    }
+
+    @Test
+    public void mapVersion1() throws IOException {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 50; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            File file = folder.newFile();
+            BinaryGraphFile.write(graph, file.getPath());
+            assertSameRows(graph, OffHeapGraph.map(file.getPath()));
+        }
+    }
+
+    @Test
+    public void convertToVersion2() throws IOException {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 50; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            File text = folder.newFile();
+            File binary = folder.newFile();
+            SmallGraphs.writeText(graph, text);
+
+            assertEquals(graph.numEdges, OffHeapGraph.convert(text.getPath(), binary.getPath()));
+            assertSameRows(graph, OffHeapGraph.map(binary.getPath()));
+        }
+    }
+
+    @Test
+    public void convertDropsSelfLoops() throws IOException {
+        File text = folder.newFile();
+        File binary = folder.newFile();
+        Files.write(text.toPath(), "3 3\n1 1 4\n1 2 5\n3 2 6\n".getBytes("US-ASCII"));
+
+        assertEquals(2, OffHeapGraph.convert(text.getPath(), binary.getPath()));
+        OffHeapGraph graph = OffHeapGraph.map(binary.getPath());
+        assertEquals(1, graph.degree(1));
+        assertEquals(2, graph.degree(2));
+        assertEquals(1, graph.degree(3));
+    }
+
+    @Test
+    public void version2IsOffHeapOnly() throws IOException {
+        File text = folder.newFile();
+        File binary = folder.newFile();
+        Files.write(text.toPath(), "2 1\n1 2 1\n".getBytes("US-ASCII"));
+        OffHeapGraph.convert(text.getPath(), binary.getPath());
+
+        BinaryGraphFileTest.assertRejected(binary);
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        File text = folder.newFile();
+        File binary = folder.newFile();
+        Files.write(text.toPath(), "3 2\n1 2 1\n2 3 1\n".getBytes("US-ASCII"));
+        OffHeapGraph.convert(text.getPath(), binary.getPath());
+        try (RandomAccessFile raw = new RandomAccessFile(binary, "rw")) {
+            raw.setLength(raw.length() - 4);
+        }
+
+        try {
+            OffHeapGraph.map(binary.getPath());
+            fail("truncated file was mapped");
+        } catch (IOException expected) {
+        }
+    }
+}
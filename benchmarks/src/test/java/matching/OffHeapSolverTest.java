@@ -0,0 +1,79 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link OffHeapSolver} on converted version 2 files against the brute force optimum
+ */
+public class OffHeapSolverTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    OffHeapGraph convert(Graph graph) throws IOException {
+        File text = folder.newFile();
+        File binary = folder.newFile();
+        SmallGraphs.writeText(graph, text);
+        OffHeapGraph.convert(text.getPath(), binary.getPath());
+        return OffHeapGraph.map(binary.getPath());
+    }
+
+    static int[] toHeap(LargeIntArray mate) {
+        int[] copy = new int[(int) mate.length()];
+        mate.get(0, copy, 0, copy.length);
+        return copy;
+    }
+
+    @Test
+    public void maximum() throws IOException {
+        Random random = new Random(12);
+        // one solver, so the state of a small graph is reused or grown for the next
+        OffHeapSolver solver = new OffHeapSolver();
+        for (int trial = 0; trial < 100; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            OffHeapGraph offHeap = convert(graph);
+
+            LargeIntArray mate = OffHeapSolver.newMate(offHeap);
+            int matched = solver.solve(offHeap, mate);
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, toHeap(mate)));
+        }
+    }
+
+    @Test
+    public void extendsMatching() throws IOException {
+        Random random = new Random(13);
+        OffHeapSolver solver = new OffHeapSolver();
+        for (int trial = 0; trial < 100; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            OffHeapGraph offHeap = convert(graph);
+
+            // any maximal matching the greedy pass would not pick
+            LargeIntArray mate = OffHeapSolver.newMate(offHeap);
+            for (int u = graph.numVertices; u >= 1; u--) {
+                for (int e = graph.offset[u]; e < graph.offset[u + 1] && mate.get(u) == 0; e++) {
+                    int v = graph.target[e];
+                    if (v != u && mate.get(v) == 0) {
+                        mate.set(u, v);
+                        mate.set(v, u);
+                    }
+                }
+            }
+
+            int matched = solver.solve(offHeap, mate);
+            assertEquals("trial " + trial, 0, solver.getNumGreedyMatched());
+            assertEquals("trial " + trial, SmallGraphs.maximumMatched(graph), matched);
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, toHeap(mate)));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Random graphs small enough to be solved by brute force, and the optimum they are checked
+ * against: a DP over the vertex subsets that matches the lowest vertex left or drops it,
+ * RT = O(2^n n).
+ */
+class SmallGraphs {
+    static final int MAX_VERTICES = 12;
+
+    // score of one pair above any weight, so the weight only breaks ties between cardinalities
+    static final long PAIR = 1L << 32;
+
+    /**
+     * G(n, p) with parallel edges and self loops, weights 1 ... 20
+     */
+    static Graph random(Random random) {
+        int n = 1 + random.nextInt(MAX_VERTICES);
+        double p = 0.1 + 0.5 * random.nextDouble();
+        Graph.Builder builder = new Graph.Builder(n);
+        for (int u = 1; u <= n; u++) {
+            for (int v = u; v <= n; v++) {
+                if (random.nextDouble() < p) {
+                    builder.addEdge(u, v, 1 + random.nextInt(20));
+                    if (random.nextInt(8) == 0) {
+                        builder.addEdge(v, u, 1 + random.nextInt(20));
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Edges only between two random sides
+     */
+    static Graph randomBipartite(Random random) {
+        int n = 2 + random.nextInt(MAX_VERTICES - 1);
+        boolean[] left = new boolean[n + 1];
+        for (int v = 1; v <= n; v++) {
+            left[v] = random.nextBoolean();
+        }
+        double p = 0.1 + 0.5 * random.nextDouble();
+        Graph.Builder builder = new Graph.Builder(n);
+        for (int u = 1; u <= n; u++) {
+            for (int v = u + 1; v <= n; v++) {
+                if (left[u] != left[v] && random.nextDouble() < p) {
+                    builder.addEdge(u, v, 1 + random.nextInt(20));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return heaviest edge between every pair, Long.MIN_VALUE if there is none
+     */
+    static long[][] heaviest(Graph graph) {
+        int n = graph.numVertices;
+        long[][] weight = new long[n + 1][n + 1];
+        for (long[] row : weight) {
+            Arrays.fill(row, Long.MIN_VALUE);
+        }
+        for (int u = 1; u <= n; u++) {
+            for (int e = graph.offset[u]; e < graph.offset[u + 1]; e++) {
+                int v = graph.target[e];
+                weight[u][v] = Math.max(weight[u][v], graph.weight[e]);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @param pair     score of a matched pair
+     * @param weighted add the weight of the edge to the score
+     * @return best score of a matching
+     */
+    static long optimum(Graph graph, long pair, boolean weighted) {
+        int n = graph.numVertices;
+        long[][] weight = heaviest(graph);
+        long[] best = new long[1 << n];
+
+        for (int set = 1; set < best.length; set++) {
+            int v = Integer.numberOfTrailingZeros(set) + 1;
+            int rest = set & (set - 1);
+            long score = best[rest];
+            for (int others = rest; others != 0; others &= others - 1) {
+                int u = Integer.numberOfTrailingZeros(others) + 1;
+                if (weight[v][u] != Long.MIN_VALUE) {
+                    long matched = best[rest & ~(1 << (u - 1))] + pair + (weighted ? weight[v][u] : 0);
+                    score = Math.max(score, matched);
+                }
+            }
+            best[set] = score;
+        }
+        return best[best.length - 1];
+    }
+
+    /**
+     * @return number of matched nodes of a maximum cardinality matching
+     */
+    static int maximumMatched(Graph graph) {
+        return 2 * (int) optimum(graph, 1, false);
+    }
+
+    /**
+     * mate must be symmetric and only use edges of graph
+     *
+     * @return number of matched nodes
+     */
+    static int assertMatching(Graph graph, int[] mate) {
+        long[][] weight = heaviest(graph);
+        int matched = 0;
+        for (int v = 1; v <= graph.numVertices; v++) {
+            int m = mate[v];
+            if (m != 0) {
+                assertEquals("mate of mate of " + v, v, mate[m]);
+                assertTrue("(" + v + ", " + m + ") is no edge", weight[v][m] != Long.MIN_VALUE);
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Edge list of graph in the text input format, every edge once
+     */
+    static void writeText(Graph graph, File file) throws IOException {
+        StringBuilder edges = new StringBuilder();
+        int numEdges = 0;
+        for (int u = 1; u <= graph.numVertices; u++) {
+            for (int e = graph.offset[u]; e < graph.offset[u + 1]; e++) {
+                if (graph.target[e] > u) {
+                    edges.append(u).append(' ').append(graph.target[e]).append(' ').append(graph.weight[e]).append('\n');
+                    numEdges++;
+                }
+            }
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write((graph.numVertices + " " + numEdges + "\n" + edges).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
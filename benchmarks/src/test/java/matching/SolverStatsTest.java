@@ -0,0 +1,120 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counters of {@link SolverStats} as the solvers keep them, folding and the JMX registration
+ */
+public class SolverStatsTest {
+    /**
+     * From an empty matching every augmentation adds one pair
+     *
+     * @return counters of all the trials
+     */
+    private SolverStats checkCounters(MatchingSolver solver, long seed, boolean blossoms) {
+        Random random = new Random(seed);
+        SolverStats total = new SolverStats();
+        for (int trial = 0; trial < 100; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            SolverStats stats = new SolverStats();
+            SolverStats.attach(solver, stats);
+            int matched = solver.solve(graph, new int[graph.numVertices + 1]);
+
+            String name = solver.getClass().getSimpleName() + " trial " + trial;
+            assertEquals(name, matched / 2, stats.getAugmentations());
+            assertTrue(name, stats.getPhases() >= (matched > 0 ? 1 : 0));
+            assertTrue(name, stats.getEdgesScanned() >= (matched > 0 ? 1 : 0));
+            total.add(stats);
+        }
+        if (blossoms) {
+            assertTrue(solver.getClass().getSimpleName(), total.getBlossoms() > 0);
+            assertTrue(total.getBlossomNodes() >= 3 * total.getBlossoms());
+        }
+        return total;
+    }
+
+    @Test
+    public void edmonds() {
+        assertTrue(checkCounters(new EdmondsSolver(), 1, true).getMaxBlossomDepth() >= 1);
+    }
+
+    @Test
+    public void multiPath() {
+        checkCounters(new MultiPathSolver(), 2, true);
+    }
+
+    @Test
+    public void hopcroftKarp() {
+        Random random = new Random(3);
+        HopcroftKarpSolver solver = new HopcroftKarpSolver();
+        for (int trial = 0; trial < 100; trial++) {
+            Graph graph = SmallGraphs.randomBipartite(random);
+            SolverStats stats = new SolverStats();
+            SolverStats.attach(solver, stats);
+            int matched = solver.solve(graph, new int[graph.numVertices + 1]);
+
+            assertEquals("trial " + trial, matched / 2, stats.getAugmentations());
+            // the last layering finds nothing
+            assertTrue("trial " + trial, stats.getPhases() >= 1);
+            assertEquals("trial " + trial, 0, stats.getBlossoms());
+        }
+    }
+
+    @Test
+    public void weighted() {
+        checkCounters(new WeightedMatchingSolver(), 4, false);
+    }
+
+    @Test
+    public void addAndSnapshot() {
+        SolverStats a = new SolverStats();
+        a.phases = 3;
+        a.edgesScanned = 10;
+        a.maxBlossomDepth = 2;
+        SolverStats b = new SolverStats();
+        b.phases = 4;
+        b.searchNanos = 7;
+        b.maxBlossomDepth = 5;
+
+        a.add(b);
+        SolverStats copy = a.snapshot();
+        a.phases++;
+        assertEquals(7, copy.getPhases());
+        assertEquals(10, copy.getEdgesScanned());
+        assertEquals(7, copy.getSearchNanos());
+        assertEquals(5, copy.getMaxBlossomDepth());
+    }
+
+    @Test
+    public void registerUnderOwnNames() throws JMException {
+        SolverStats first = new SolverStats();
+        SolverStats second = new SolverStats();
+        first.phases = 6;
+        ObjectName firstName = first.register();
+        ObjectName secondName = second.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertNotEquals(firstName, secondName);
+            assertEquals("SolverStats", firstName.getKeyProperty("type"));
+            assertEquals(6L, server.getAttribute(firstName, "Phases"));
+            assertEquals(0L, server.getAttribute(secondName, "Phases"));
+        } finally {
+            server.unregisterMBean(firstName);
+            server.unregisterMBean(secondName);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link StreamingMatching} on edge list files against {@link EdmondsSolver}
+ */
+public class StreamingMatchingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    StreamingMatching stream(Graph graph, double epsilon, long seed) throws IOException {
+        File file = folder.newFile();
+        SmallGraphs.writeText(graph, file);
+        StreamingMatching matching = new StreamingMatching(file.getPath());
+        matching.epsilon = epsilon;
+        matching.random = new Random(seed);
+        return matching;
+    }
+
+    /**
+     * Run matching on graph, it must be a matching within its epsilon of the maximum
+     */
+    private void check(StreamingMatching matching, Graph graph, String trial) throws IOException {
+        int maximum = new EdmondsSolver().solve(graph, new int[graph.numVertices + 1]);
+        int matched = matching.run();
+
+        assertEquals(trial, matched, SmallGraphs.assertMatching(graph, matching.mate));
+        assertTrue(trial, matching.isGuaranteed());
+        assertTrue(trial + ": " + matched + " of " + maximum, matched >= (1 - matching.epsilon) * maximum);
+        assertTrue(trial, maximum <= matching.getMaximumBound());
+    }
+
+    @Test
+    public void smallGraphs() throws IOException {
+        Random random = new Random(14);
+        for (int trial = 0; trial < 100; trial++) {
+            Graph graph = trial % 3 == 0 ? SmallGraphs.randomBipartite(random) : SmallGraphs.random(random);
+            check(stream(graph, 0.25, trial), graph, "trial " + trial);
+        }
+    }
+
+    @Test
+    public void sparseGraphs() throws IOException {
+        Random random = new Random(15);
+        for (int trial = 0; trial < 20; trial++) {
+            int n = 50 + random.nextInt(300);
+            Graph graph = MultiPathSolverTest.sparse(random, n, 1 + 3 * random.nextDouble());
+            double epsilon = trial % 2 == 0 ? 0.5 : 0.25;
+            check(stream(graph, epsilon, trial), graph, "trial " + trial + ", epsilon " + epsilon);
+        }
+    }
+
+    @Test
+    public void outOfPasses() throws IOException {
+        Graph graph = MultiPathSolverTest.sparse(new Random(16), 300, 3);
+        StreamingMatching matching = stream(graph, 0.25, 16);
+        matching.maxPasses = 3;
+        int matched = matching.run();
+
+        assertEquals(matched, SmallGraphs.assertMatching(graph, matching.mate));
+        assertEquals(3, matching.getNumPasses());
+        assertFalse(matching.isGuaranteed());
+        // the first pass alone is maximal
+        assertTrue(2 * matched >= new EdmondsSolver().solve(graph, new int[graph.numVertices + 1]));
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * @author Jun Yu
+ */
+package matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link WeightedMatchingSolver} against the brute force optimum of {@link SmallGraphs}, from
+ * an empty matching and warm started
+ */
+public class WeightedMatchingSolverTest {
+    static final int TRIALS = 300;
+
+    @Test
+    public void weighted() {
+        Random random = new Random(8);
+        // one solver, so the state of a small graph is reused or grown for the next
+        WeightedMatchingSolver solver = new WeightedMatchingSolver(false);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            solver.solve(graph, mate);
+
+            SmallGraphs.assertMatching(graph, mate);
+            assertEquals("trial " + trial, SmallGraphs.optimum(graph, 0, true),
+                    WeightedMatchingSolver.weight(graph, mate));
+        }
+    }
+
+    @Test
+    public void weightedMaximumCardinality() {
+        Random random = new Random(9);
+        WeightedMatchingSolver solver = new WeightedMatchingSolver(true);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            int[] mate = new int[graph.numVertices + 1];
+            int matched = solver.solve(graph, mate);
+
+            assertEquals("trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+            long expected = SmallGraphs.optimum(graph, SmallGraphs.PAIR, true);
+            assertEquals("trial " + trial, expected, matched / 2 * SmallGraphs.PAIR
+                    + WeightedMatchingSolver.weight(graph, mate));
+        }
+    }
+
+    @Test
+    public void warmStart() {
+        Random random = new Random(10);
+        WeightedMatchingSolver solver = new WeightedMatchingSolver(false);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            long expected = SmallGraphs.optimum(graph, 0, true);
+            for (InitialMatching initial : InitialMatching.values()) {
+                int[] mate = new int[graph.numVertices + 1];
+                initial.match(graph, mate);
+                solver.solve(graph, mate);
+
+                SmallGraphs.assertMatching(graph, mate);
+                assertEquals(initial + " trial " + trial, expected, WeightedMatchingSolver.weight(graph, mate));
+            }
+
+            // from its own optimum
+            int[] mate = new int[graph.numVertices + 1];
+            solver.solve(graph, mate);
+            solver.solve(graph, mate);
+            assertEquals("again trial " + trial, expected, WeightedMatchingSolver.weight(graph, mate));
+        }
+    }
+
+    @Test
+    public void warmStartMaximumCardinality() {
+        Random random = new Random(11);
+        WeightedMatchingSolver solver = new WeightedMatchingSolver(true);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            Graph graph = SmallGraphs.random(random);
+            long expected = SmallGraphs.optimum(graph, SmallGraphs.PAIR, true);
+            for (InitialMatching initial : InitialMatching.values()) {
+                int[] mate = new int[graph.numVertices + 1];
+                initial.match(graph, mate);
+                int matched = solver.solve(graph, mate);
+
+                assertEquals(initial + " trial " + trial, matched, SmallGraphs.assertMatching(graph, mate));
+                assertEquals(initial + " trial " + trial, expected, matched / 2 * SmallGraphs.PAIR
+                        + WeightedMatchingSolver.weight(graph, mate));
+            }
+        }
+    }
+
+    @Test
+    public void keepsPairsItsDualsHold() {
+        // a path 1-2-3-4 matched in its middle, the optimum over its two outer edges
+        Graph.Builder builder = new Graph.Builder(4);
+        builder.addEdge(1, 2, 3);
+        builder.addEdge(2, 3, 5);
+        builder.addEdge(3, 4, 3);
+        Graph graph = builder.build();
+        WeightedMatchingSolver solver = new WeightedMatchingSolver();
+
+        int[] mate = {0, 2, 1, 4, 3};
+        solver.solve(graph, mate);
+        assertEquals(0, solver.getNumDropped());
+        assertEquals(6, WeightedMatchingSolver.weight(graph, mate));
+
+        mate = new int[]{0, 0, 3, 2, 0};
+        solver.solve(graph, mate);
+        assertEquals(6, WeightedMatchingSolver.weight(graph, mate));
+    }
+}
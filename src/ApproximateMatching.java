@@ -0,0 +1,296 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fast parallel matchings that are maximal but not maximum, for when a near maximum
+ * matching now is worth more than the exact one later. Both run in O(m) work per round on
+ * a fork/join pool and are at least half the optimum.
+ * <ul>
+ * <li>cardinality: handshaking rounds. Every free node points at the free neighbor whose
+ * edge has the smallest key, fewest free neighbors at both ends first, then a hash that
+ * changes every round, like Luby's random priorities. Two nodes pointing at each other
+ * are matched. The edge with the smallest key always shakes hands, so every round makes
+ * progress, and rounds go on until no edge between free nodes is left. Only the nodes
+ * that still have a free neighbor take part in a round. Pointing and matching are
+ * separate sweeps, ordered by the joins of the pool, so they need no atomics.</li>
+ * <li>weighted: Suitor, the locally dominant matching. Every node proposes to the
+ * neighbor that values it most, a proposal replaces a weaker suitor by a compare and set
+ * on the suitor array, and the one replaced proposes again elsewhere. Ties are broken by
+ * node id, which orders all edges, so the result is the greedy heaviest first matching
+ * whatever the thread timing. Edges of weight 0 or less are left out.</li>
+ * </ul>
+ * The result can seed an exact solver, see {@link MaximumMatching#procedure(int[])}; the
+ * few percent it misses are many short paths, which {@link MultiPathSolver} takes in a few
+ * phases.
+ */
+public class ApproximateMatching {
+    // nodes per task
+    static final int GRAIN = 1 << 12;
+
+    final boolean weighted;
+    final ForkJoinPool pool;
+
+    Graph graph;
+    int[] mate;
+
+    // handshaking: free neighbors of every node in the last round and in this one
+    int[] freeDegree;
+    int[] nextFreeDegree;
+    int[] candidate;
+    int round;
+    // free nodes that had a free neighbor in the last round
+    int[] active;
+    int numActive;
+
+    // Suitor: weight << 32 | id of the best proposal a node holds, 0 for none
+    AtomicLongArray suitor;
+
+    /**
+     * @param weighted    Suitor on the edge weights instead of cardinality handshaking
+     * @param parallelism number of worker threads
+     */
+    public ApproximateMatching(boolean weighted, int parallelism) {
+        this.weighted = weighted;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * @param mate cardinality extends the matching in it, weighted overwrites it
+     * @return number of matched nodes
+     */
+    public int match(Graph graph, int[] mate) {
+        this.graph = graph;
+        this.mate = mate;
+        int n = graph.numVertices;
+
+        if (weighted) {
+            suitor = new AtomicLongArray(n + 1);
+            pool.invoke(new Pass(Pass.PROPOSE, 1, n + 1));
+            pool.invoke(new Pass(Pass.COLLECT, 1, n + 1));
+            suitor = null;
+        } else {
+            freeDegree = new int[n + 1];
+            nextFreeDegree = new int[n + 1];
+            candidate = new int[n + 1];
+            active = new int[n];
+            numActive = 0;
+            for (int v = 1; v <= n; v++) {
+                freeDegree[v] = graph.degree(v);
+                if (mate[v] == 0 && freeDegree[v] > 0) {
+                    active[numActive++] = v;
+                }
+            }
+
+            round = 0;
+            while (pool.invoke(new Pass(Pass.POINT, 0, numActive)) > 0) {
+                pool.invoke(new Pass(Pass.SHAKE, 0, numActive));
+                int[] swap = freeDegree;
+                freeDegree = nextFreeDegree;
+                nextFreeDegree = swap;
+                round++;
+
+                // a node without a free neighbor never gets one again
+                int kept = 0;
+                for (int i = 0; i < numActive; i++) {
+                    int v = active[i];
+                    if (mate[v] == 0 && candidate[v] != 0) {
+                        active[kept++] = v;
+                    }
+                }
+                numActive = kept;
+            }
+            freeDegree = nextFreeDegree = candidate = active = null;
+        }
+
+        int num = 0;
+        for (int v = 1; v <= n; v++) {
+            if (mate[v] != 0) {
+                num++;
+            }
+        }
+        return num;
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Handshake key of edge (u, v), the same from both ends
+     */
+    long key(int u, int v) {
+        int low = Math.min(u, v);
+        int high = Math.max(u, v);
+        int hash = (low * 0x9E3779B9 + high) * 0x85EBCA6B ^ round * 0xC2B2AE35;
+        hash ^= hash >>> 15;
+        return (long) (freeDegree[u] + freeDegree[v]) << 32 | (hash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Point free node u at the free neighbor of the smallest key
+     *
+     * @return 1 if u has a free neighbor
+     */
+    int point(int u) {
+        candidate[u] = 0;
+        nextFreeDegree[u] = 0;
+        if (mate[u] != 0) {
+            return 0;
+        }
+
+        int[] offset = graph.offset;
+        int[] target = graph.target;
+        int best = 0;
+        long bestKey = Long.MAX_VALUE;
+        int degree = 0;
+        for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+            int v = target[e];
+            if (mate[v] != 0) {
+                continue;
+            }
+            degree++;
+            long key = key(u, v);
+            if (key < bestKey) {
+                bestKey = key;
+                best = v;
+            }
+        }
+        candidate[u] = best;
+        nextFreeDegree[u] = degree;
+        return best != 0 ? 1 : 0;
+    }
+
+    /**
+     * Match u with its candidate if the candidate points back, from the smaller end only
+     */
+    void shake(int u) {
+        int v = candidate[u];
+        if (v > u && candidate[v] == u) {
+            mate[u] = v;
+            mate[v] = u;
+        }
+    }
+
+    /**
+     * Suitor: let u propose until it holds a place or has nobody left to propose to, then
+     * the same for every node it displaced
+     */
+    void propose(int u) {
+        int[] offset = graph.offset;
+        int[] target = graph.target;
+        int[] weight = graph.weight;
+
+        int current = u;
+        while (current != 0) {
+            // the most valuable neighbor whose present suitor is worth less than current
+            int best = 0;
+            long bestOffer = 0;
+            for (int e = offset[current], end = offset[current + 1]; e < end; e++) {
+                int v = target[e];
+                int w = weight[e];
+                if (w <= 0) {
+                    continue;
+                }
+                long offer = offer(w, current);
+                if (offer > suitor.get(v) && (best == 0 || w > (int) (bestOffer >>> 32)
+                        || w == (int) (bestOffer >>> 32) && v > best)) {
+                    best = v;
+                    bestOffer = offer;
+                }
+            }
+            if (best == 0) {
+                return;
+            }
+
+            long held = suitor.get(best);
+            if (bestOffer <= held) {
+                continue; // outbid meanwhile, look again
+            }
+            if (suitor.compareAndSet(best, held, bestOffer)) {
+                current = (int) held; // the displaced suitor, 0 if there was none
+            }
+        }
+    }
+
+    /**
+     * Proposal of node id with edge weight w, offers to the same node compare by weight,
+     * then id, which orders all edges by weight and then by their end points
+     */
+    static long offer(int w, int id) {
+        return (long) w << 32 | id;
+    }
+
+    /**
+     * Suitor: u and v are matched if each holds the proposal of the other
+     */
+    void collect(int u) {
+        int v = (int) suitor.get(u);
+        mate[u] = v != 0 && (int) suitor.get(v) == u ? v : 0;
+    }
+
+    /**
+     * One parallel sweep over the nodes [from, to), for the handshaking steps over
+     * active[from ... to - 1]
+     */
+    class Pass extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        static final int POINT = 0;
+        static final int SHAKE = 1;
+        static final int PROPOSE = 2;
+        static final int COLLECT = 3;
+
+        final int step;
+        final int from;
+        final int to;
+
+        Pass(int step, int from, int to) {
+            this.step = step;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return for POINT the number of nodes with a free neighbor
+         */
+        @Override
+        protected Integer compute() {
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                Pass right = new Pass(step, middle, to);
+                right.fork();
+                int left = new Pass(step, from, middle).compute();
+                return left + right.join();
+            }
+
+            int count = 0;
+            boolean handshaking = step == POINT || step == SHAKE;
+            for (int i = from; i < to; i++) {
+                int u = handshaking ? active[i] : i;
+                switch (step) {
+                    case POINT:
+                        count += point(u);
+                        break;
+                    case SHAKE:
+                        shake(u);
+                        break;
+                    case PROPOSE:
+                        propose(u);
+                        break;
+                    case COLLECT:
+                        collect(u);
+                        break;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solve a stream of many small graphs on a fixed pool of threads.
+ * <p>
+ * Every thread keeps a {@link Workspace}: the mate array, the buffers of the initial
+ * heuristic and the 2-coloring, and one solver of each kind, whose arrays only grow. Once
+ * they fit the largest graph seen, a graph costs no allocation but a few small objects,
+ * there are no tasks per graph either, the threads pull graphs from the stream in turn.
+ * Only taking the next element of the stream is serialized, a {@link GraphSource} is
+ * loaded by its worker, so files are read and parsed in parallel.
+ */
+public class BatchSolver {
+
+    /**
+     * Receives the results, called concurrently from the worker threads
+     */
+    public interface ResultHandler {
+        /**
+         * @param index position of graph in the stream
+         * @param mate  matching of graph in entries 1 ... numVertices, a pooled array that is
+         *              only valid during the call
+         * @param numMatched number of matched nodes
+         */
+        void solved(int index, Graph graph, int[] mate, int numMatched);
+    }
+
+    /**
+     * One graph of a stream, loaded by the worker that takes it
+     */
+    public interface GraphSource {
+        Graph load() throws IOException;
+    }
+
+    // engine for every graph, see MaximumMatching#solverFor, null picks per graph
+    final String solverName;
+    final int parallelism;
+    final ExecutorService pool;
+
+    // one per worker, kept between batches
+    final Workspace[] workspaces;
+
+    // stream of the running batch, guarded by streamLock
+    final Object streamLock = new Object();
+    Iterator<? extends GraphSource> sources;
+    int nextIndex;
+
+    /**
+     * @param solverName  engine for each graph, null for Hopcroft-Karp on bipartite graphs
+     *                    and Edmonds on the others
+     * @param parallelism number of worker threads
+     */
+    public BatchSolver(String solverName, int parallelism) {
+        if (solverName != null && MaximumMatching.solverFor(solverName) == null) {
+            throw new IllegalArgumentException("Unknown solver " + solverName);
+        }
+        this.solverName = solverName;
+        this.parallelism = parallelism;
+        this.pool = Executors.newFixedThreadPool(parallelism);
+
+        workspaces = new Workspace[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workspaces[i] = new Workspace(solverName);
+        }
+    }
+
+    /**
+     * Solve every graph of the stream, one batch at a time
+     *
+     * @param graphs  read by one worker at a time, next() should be cheap, give sources to
+     *                load graphs in parallel
+     * @param handler gets every result, in no particular order
+     * @return number of graphs solved
+     */
+    public int solve(final Iterator<Graph> graphs, ResultHandler handler) throws InterruptedException {
+        return solveSources(new Iterator<GraphSource>() {
+            @Override
+            public boolean hasNext() {
+                return graphs.hasNext();
+            }
+
+            @Override
+            public GraphSource next() {
+                final Graph graph = graphs.next();
+                return new GraphSource() {
+                    @Override
+                    public Graph load() {
+                        return graph;
+                    }
+                };
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }, handler);
+    }
+
+    /**
+     * Solve the graph of every source, one batch at a time
+     *
+     * @param sources read by one worker at a time, the graphs are loaded concurrently
+     * @param handler gets every result, in no particular order
+     * @return number of graphs solved
+     */
+    public synchronized int solveSources(Iterator<? extends GraphSource> sources, final ResultHandler handler)
+            throws InterruptedException {
+        synchronized (streamLock) {
+            this.sources = sources;
+            nextIndex = 0;
+        }
+
+        Future<?>[] workers = new Future<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            final Workspace workspace = workspaces[i];
+            workers[i] = pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    work(workspace, handler);
+                }
+            });
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                }
+            }
+        }
+        synchronized (streamLock) {
+            this.sources = null;
+            if (failure != null) {
+                throw failure;
+            }
+            return nextIndex;
+        }
+    }
+
+    /**
+     * Take graphs until the stream is empty, or another worker failed and drained it
+     */
+    private void work(Workspace workspace, ResultHandler handler) {
+        while (true) {
+            GraphSource source;
+            int index;
+            synchronized (streamLock) {
+                if (sources == null || !sources.hasNext()) {
+                    return;
+                }
+                source = sources.next();
+                index = nextIndex++;
+            }
+
+            try {
+                Graph graph;
+                try {
+                    graph = source.load();
+                } catch (IOException e) {
+                    throw new RuntimeException("Cannot load graph " + index, e);
+                }
+                int numMatched = workspace.solve(graph);
+                handler.solved(index, graph, workspace.mate, numMatched);
+            } catch (RuntimeException | Error e) {
+                synchronized (streamLock) {
+                    sources = null; // stop the others
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stop the worker threads once the running batch is done
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Pooled state of one worker thread
+     */
+    static class Workspace {
+        int[] mate = new int[1];
+        // 2-coloring
+        byte[] side = new byte[1];
+        int[] queue = new int[1];
+        // Karp-Sipser
+        int[] degree = new int[1];
+        int[] degreeOne = new int[1];
+
+        final EdmondsSolver edmonds = new EdmondsSolver();
+        final HopcroftKarpSolver hopcroftKarp = new HopcroftKarpSolver();
+        // the engine asked for, null picks Hopcroft-Karp or Edmonds per graph
+        final MatchingSolver named;
+
+        Workspace(String solverName) {
+            named = solverName == null ? null : MaximumMatching.solverFor(solverName);
+        }
+
+        /**
+         * Karp-Sipser, then the solver, like {@link MaximumMatching#procedure()}
+         *
+         * @return number of matched nodes, the matching is in mate
+         */
+        int solve(Graph graph) {
+            int size = graph.numVertices + 1;
+            if (mate.length < size) {
+                int capacity = Math.max(size, 2 * mate.length);
+                mate = new int[capacity];
+                side = new byte[capacity];
+                queue = new int[capacity];
+                degree = new int[capacity];
+                degreeOne = new int[capacity];
+            }
+            Arrays.fill(mate, 0, size, 0);
+
+            MatchingSolver solver = named;
+            if (solver == null || solver instanceof HopcroftKarpSolver) {
+                if (graph.twoColoring(side, queue)) {
+                    hopcroftKarp.side = side;
+                    solver = hopcroftKarp;
+                } else if (solver == null) {
+                    solver = edmonds;
+                } else {
+                    throw new IllegalArgumentException("Graph is not bipartite");
+                }
+            }
+
+            int numMatched = 0;
+            if (!(solver instanceof WeightedMatchingSolver)) {
+                // the weighted engine starts from an empty matching anyway
+                numMatched = InitialMatching.karpSipser(graph, mate, degree, degreeOne);
+            }
+            if (numMatched < graph.numVertices) {
+                numMatched = solver.solve(graph, mate);
+            }
+            return numMatched;
+        }
+    }
+
+    /**
+     * Usage: BatchSolver [--solver=name] [--parallel=threads] input ..., solves every input
+     * file, text or {@link BinaryGraphFile}, and prints "input numMatched" per file in the
+     * order given. By default on all cores.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String solverName = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int numInputs = 0;
+        final String[] inputs = new String[args.length];
+
+        for (String arg : args) {
+            if (arg.startsWith("--solver=")) {
+                solverName = arg.substring("--solver=".length());
+                if (MaximumMatching.solverFor(solverName) == null) {
+                    System.err.println("Unknown solver " + arg);
+                    System.exit(-1);
+                }
+            } else if (arg.startsWith("--parallel=")) {
+                threads = Integer.parseInt(arg.substring("--parallel=".length()));
+            } else {
+                inputs[numInputs++] = arg;
+            }
+        }
+
+        final int count = numInputs;
+        Iterator<GraphSource> sources = new Iterator<GraphSource>() {
+            int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public GraphSource next() {
+                if (next == count) {
+                    throw new NoSuchElementException();
+                }
+                final String input = inputs[next++];
+                return new GraphSource() {
+                    @Override
+                    public Graph load() throws IOException {
+                        try {
+                            return BinaryGraphFile.isBinary(input)
+                                    ? BinaryGraphFile.read(input)
+                                    : EdgeListParser.parse(input, 1);
+                        } catch (IOException e) {
+                            throw new IOException("Cannot read " + input, e);
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        final int[] results = new int[count];
+        BatchSolver batch = new BatchSolver(solverName, threads);
+        try {
+            batch.solveSources(sources, new ResultHandler() {
+                @Override
+                public void solved(int index, Graph graph, int[] mate, int numMatched) {
+                    results[index] = numMatched;
+                }
+            });
+        } finally {
+            batch.shutdown();
+        }
+
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            out.append(inputs[i]).append(' ').append(results[i]).append('\n');
+        }
+        System.out.print(out);
+    }
+}
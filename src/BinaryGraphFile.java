@@ -0,0 +1,183 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary CSR form of a {@link Graph}, little endian ints:
+ * <pre>
+ * magic "MMGR", version, numVertices, numEntries (= 2 * edges)
+ * offset[0 ... numVertices + 1]
+ * target[0 ... numEntries - 1]
+ * weight[0 ... numEntries - 1]
+ * </pre>
+ * Loading maps the file and bulk copies every section into its array, there is no parsing,
+ * only one check that the offsets are in order and the targets are vertices.
+ * <p>
+ * Version 2 is for graphs past 2^31 entries: a 24 byte header of magic, version,
+ * numVertices, 0 and numEntries as a long, then the offsets as longs and the same target
+ * and weight sections. It is only read by {@link OffHeapGraph}, which maps either version in
+ * place. Usage to convert a text edge list: BinaryGraphFile [--large] input output, --large
+ * writes version 2 without loading the graph into the heap.
+ */
+public class BinaryGraphFile {
+    static final int MAGIC = 'M' | 'M' << 8 | 'G' << 16 | 'R' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 4;
+    static final int VERSION_LARGE = 2;
+    static final int HEADER_BYTES_LARGE = 24;
+
+    // ints per mapped window when reading, bytes per block when writing
+    static final int WINDOW = 1 << 26;
+    static final int BLOCK = 1 << 22;
+
+    /**
+     * @return true if the file starts with the magic of this format
+     */
+    public static boolean isBinary(String path) throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return file.read(head, 0) == 4 && head.getInt(0) == MAGIC;
+        }
+    }
+
+    public static Graph read(String path) throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4 * HEADER_INTS).order(ByteOrder.LITTLE_ENDIAN);
+            if (file.read(head, 0) != head.capacity() || head.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a binary graph file");
+            }
+            if (head.getInt(4) == VERSION_LARGE) {
+                throw new IOException(path + " is a version 2 file, it can only be used off-heap");
+            }
+            if (head.getInt(4) != VERSION) {
+                throw new IOException("Unsupported binary graph version " + head.getInt(4));
+            }
+            int numVertices = head.getInt(8);
+            int numEntries = head.getInt(12);
+            if (numVertices < 0 || numVertices > Integer.MAX_VALUE - 2) {
+                throw new IOException(path + ": vertex count " + numVertices + " at byte 8");
+            }
+            if (numEntries < 0) {
+                throw new IOException(path + ": entry count " + numEntries + " at byte 12");
+            }
+
+            long expected = 4L * (HEADER_INTS + numVertices + 2 + 2L * numEntries);
+            if (file.size() != expected) {
+                throw new IOException(path + " has " + file.size() + " bytes, expected " + expected);
+            }
+
+            long position = 4L * HEADER_INTS;
+            int[] offset = new int[numVertices + 2];
+            position = readInts(file, position, offset);
+            int[] target = new int[numEntries];
+            position = readInts(file, position, target);
+            int[] weight = new int[numEntries];
+            readInts(file, position, weight);
+            validate(path, numVertices, offset, target);
+
+            return new Graph(numVertices, offset, target, weight);
+        }
+    }
+
+    /**
+     * Check the offsets run from 0 to the entry count without going down and every target
+     * is a vertex, so a corrupt file fails here and not deep in a solver
+     */
+    static void validate(String path, int numVertices, int[] offset, int[] target) throws IOException {
+        long offsets = 4L * HEADER_INTS;
+        if (offset[0] != 0) {
+            throw new IOException(path + ": offset " + offset[0] + " of vertex 0 is not 0, at byte " + offsets);
+        }
+        for (int v = 1; v < offset.length; v++) {
+            if (offset[v] < offset[v - 1] || offset[v] > target.length) {
+                throw new IOException(path + ": offset " + offset[v] + " of vertex " + v + " is out of order, at byte "
+                        + (offsets + 4L * v));
+            }
+        }
+        if (offset[numVertices + 1] != target.length) {
+            throw new IOException(path + ": last offset " + offset[numVertices + 1] + " is not the entry count "
+                    + target.length + ", at byte " + (offsets + 4L * (numVertices + 1)));
+        }
+
+        long targets = offsets + 4L * offset.length;
+        for (int i = 0; i < target.length; i++) {
+            if (target[i] < 1 || target[i] > numVertices) {
+                throw new IOException(path + ": target " + target[i] + " is not in 1..." + numVertices + ", at byte "
+                        + (targets + 4L * i));
+            }
+        }
+    }
+
+    /**
+     * Fill values from the file at position, one mapped window at a time
+     *
+     * @return position after the section
+     */
+    static long readInts(FileChannel file, long position, int[] values) throws IOException {
+        for (int i = 0; i < values.length; i += WINDOW) {
+            int length = Math.min(WINDOW, values.length - i);
+            IntBuffer window = file.map(FileChannel.MapMode.READ_ONLY, position, 4L * length)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            window.get(values, i, length);
+            position += 4L * length;
+        }
+        return position;
+    }
+
+    public static void write(Graph graph, String path) throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer block = ByteBuffer.allocateDirect(BLOCK)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            block.putInt(MAGIC).putInt(VERSION).putInt(graph.numVertices).putInt(graph.target.length);
+            writeInts(file, block, graph.offset);
+            writeInts(file, block, graph.target);
+            writeInts(file, block, graph.weight);
+            flush(file, block);
+        }
+    }
+
+    static void writeInts(FileChannel file, ByteBuffer block, int[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (!block.hasRemaining()) {
+                flush(file, block);
+            }
+            // the view starts at the current position of the block
+            IntBuffer ints = block.asIntBuffer();
+            int length = Math.min(ints.remaining(), values.length - i);
+            ints.put(values, i, length);
+            block.position(block.position() + 4 * length);
+            i += length;
+        }
+    }
+
+    static void flush(FileChannel file, ByteBuffer block) throws IOException {
+        block.flip();
+        while (block.hasRemaining()) {
+            file.write(block);
+        }
+        block.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--large")) {
+            OffHeapGraph.convert(args[1], args[2]);
+            return;
+        }
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryGraphFile [--large] input.txt output.bin");
+            System.exit(-1);
+        }
+        write(EdgeListParser.parse(args[0], Runtime.getRuntime().availableProcessors()), args[1]);
+    }
+}
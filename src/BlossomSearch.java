@@ -0,0 +1,441 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * The phase of Edmonds' blossom algorithm, apart from where its state is kept.
+ * <p>
+ * A phase grows alternating trees from all free nodes at once until an edge joins two
+ * trees. Blossoms are contracted with union-find labels, a node that turns outer inside a
+ * blossom remembers the closing edge (bridge) instead, and the path is expanded while it is
+ * flipped. Nothing is recursive, a phase costs O(m alpha(n)).
+ * <p>
+ * The state is one int per node and field, read and written through the accessors below:
+ * {@link EdmondsSolver} keeps it in int arrays, {@link OffHeapSolver} in direct memory.
+ * Subclasses also say how the edges of a node are read, see {@link #scan}.
+ */
+abstract class BlossomSearch {
+    static final byte UNLABELED = 0;
+    static final byte OUTER = 1;
+    static final byte INNER = 2;
+
+    final boolean disjointPaths;
+
+    int numVertices;
+
+    // label(v) - epoch is the label of v in this phase, UNLABELED if it is not above 0
+    int epoch;
+    // two fresh stamps per lowestCommonAncestor call, one per side, save clearing the marks
+    int ancestorStamp;
+    // outer nodes to scan are queue(queueHead) ... queue(queueTail - 1)
+    int queueHead;
+    int queueTail;
+    // free nodes are free(0) ... free(numFree - 1), compacted at the start of every phase
+    int numFree;
+
+    // counters, null when instrumentation is off
+    SolverStats stats;
+    // with stats: nesting depth of the blossom based at a node, and of the cycle being shrunk
+    int[] blossomDepth;
+    int cycleDepth;
+
+    BlossomSearch(boolean disjointPaths) {
+        this.disjointPaths = disjointPaths;
+    }
+
+    // the state of node v, see the fields of EdmondsSolver
+
+    abstract int mate(int v);
+
+    abstract void setMate(int v, int m);
+
+    abstract int rawLabel(int v);
+
+    abstract void setRawLabel(int v, int l);
+
+    abstract int root(int v);
+
+    abstract void setRoot(int v, int r);
+
+    abstract int parent(int v);
+
+    abstract void setParent(int v, int p);
+
+    abstract int bridgeFrom(int v);
+
+    abstract void setBridgeFrom(int v, int x);
+
+    abstract int bridgeTo(int v);
+
+    abstract void setBridgeTo(int v, int y);
+
+    abstract int blossom(int v);
+
+    abstract void setBlossom(int v, int b);
+
+    abstract int base(int v);
+
+    abstract void setBase(int v, int b);
+
+    abstract int ancestorMark(int v);
+
+    abstract void setAncestorMark(int v, int stamp);
+
+    abstract boolean dead(int r);
+
+    abstract void setDead(int r, boolean dead);
+
+    abstract int queue(int i);
+
+    abstract void setQueue(int i, int v);
+
+    abstract int free(int i);
+
+    abstract void setFree(int i, int v);
+
+    abstract int pending(long i);
+
+    abstract void setPending(long i, int v);
+
+    /**
+     * Set every raw label to 0
+     */
+    abstract void clearLabels();
+
+    /**
+     * Set every ancestor mark to 0
+     */
+    abstract void clearAncestorMarks();
+
+    /**
+     * Visit the edges of outer node u until one closes an augmenting path
+     *
+     * @return true if a path was flipped, the tree of u is gone then
+     */
+    abstract boolean scan(int u);
+
+    /**
+     * List the free nodes among 1 ... numVertices, free has to hold them
+     */
+    void listFree(int numVertices) {
+        this.numVertices = numVertices;
+        // labels and marks of an earlier solve are older than any later epoch or stamp
+        numFree = 0;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mate(v) == 0) {
+                setFree(numFree++, v);
+            }
+        }
+    }
+
+    int countMatched() {
+        int num = 0;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mate(v) != 0) {
+                num++;
+            }
+        }
+        return num;
+    }
+
+    /**
+     * Start a phase: every label of the previous ones becomes UNLABELED, RT = O(1) but for
+     * one clear every 2^29 phases
+     */
+    void nextEpoch() {
+        if (epoch > Integer.MAX_VALUE - 2 * (INNER + 1)) {
+            clearLabels();
+            epoch = 0;
+        }
+        epoch += INNER + 1;
+    }
+
+    int label(int v) {
+        int l = rawLabel(v) - epoch;
+        return l > 0 ? l : UNLABELED;
+    }
+
+    /**
+     * Label free node r as the outer root of its own tree
+     */
+    void plantRoot(int r) {
+        setRawLabel(r, epoch + OUTER);
+        setRoot(r, r);
+        setBridgeFrom(r, 0);
+        setBlossom(r, r);
+        setBase(r, r);
+        if (blossomDepth != null) {
+            blossomDepth[r] = 0;
+        }
+        setQueue(queueTail++, r);
+    }
+
+    /**
+     * Add matched node v, reached from outer node u, and its mate x to the tree of u
+     */
+    void growTree(int u, int v, int x) {
+        int r = root(u);
+        setRawLabel(v, epoch + INNER);
+        setParent(v, u);
+        setRoot(v, r);
+        setBlossom(v, v);
+        setBase(v, v);
+
+        setRawLabel(x, epoch + OUTER);
+        setRoot(x, r);
+        setBridgeFrom(x, 0);
+        setBlossom(x, x);
+        setBase(x, x);
+
+        if (blossomDepth != null) {
+            blossomDepth[v] = 0;
+            blossomDepth[x] = 0;
+        }
+        setQueue(queueTail++, x);
+    }
+
+    /**
+     * Label every free node as the outer root of its own tree and queue it
+     */
+    void plantRoots() {
+        queueHead = 0;
+        queueTail = 0;
+
+        int kept = 0;
+        for (int i = 0; i < numFree; i++) {
+            int r = free(i);
+            if (mate(r) != 0) {
+                continue;
+            }
+            setFree(kept++, r);
+            setDead(r, false);
+            plantRoot(r);
+        }
+        numFree = kept;
+    }
+
+    /**
+     * One phase: grow the forest until an augmenting path shows up, or with disjointPaths
+     * until the forest cannot grow any more
+     *
+     * @return number of augmenting paths applied
+     */
+    int buildAlternatingTree() {
+        nextEpoch();
+        plantRoots();
+
+        int augmentations = 0;
+        while (queueHead < queueTail) {
+            int u = queue(queueHead++);
+            if (dead(root(u))) {
+                continue;
+            }
+            if (scan(u)) {
+                augmentations++;
+                if (!disjointPaths) {
+                    return augmentations;
+                }
+            }
+        }
+
+        return augmentations;
+    }
+
+    /**
+     * Edge (u, v) of outer node u: grow, shrink a blossom or flip an augmenting path
+     *
+     * @return true if a path was flipped
+     */
+    final boolean visit(int u, int v) {
+        int labelV = rawLabel(v) - epoch;
+
+        if (labelV <= UNLABELED) {
+            // v is matched because every free node is a root, grow by v and its mate
+            growTree(u, v, mate(v));
+        } else if (labelV == OUTER) {
+            int rootU = root(u);
+            int rootV = root(v);
+            if (rootV != rootU) {
+                if (dead(rootV)) {
+                    return false;
+                }
+
+                // root(u) ... u - v ... root(v)
+                setDead(rootU, true);
+                setDead(rootV, true);
+                augmentPath(u, v);
+                augmentPath(v, u);
+                return true;
+            }
+            if (findBase(u) != findBase(v)) {
+                shrinkCycle(u, v);
+            }
+        }
+        // inner v closes an even cycle, or v is in a dead tree, nothing to do
+        return false;
+    }
+
+    /**
+     * Base of the outermost blossom containing v, v itself if it is not contracted
+     */
+    int findBase(int v) {
+        int r = v;
+        int up = blossom(r);
+        while (up != r) {
+            // path halving
+            int next = blossom(up);
+            setBlossom(r, next);
+            r = next;
+            up = blossom(r);
+        }
+        return base(r);
+    }
+
+    /**
+     * Merge the blossom containing v into the blossom based at b, keeping b as base
+     */
+    void unionBlossom(int v, int b) {
+        int r = v;
+        while (blossom(r) != r) {
+            r = blossom(r);
+        }
+        int l = b;
+        while (blossom(l) != l) {
+            l = blossom(l);
+        }
+        if (r != l) {
+            setBlossom(r, l);
+            setBase(l, b);
+        }
+    }
+
+    /**
+     * Find LCA of the blossoms of u and v in the same tree, walking up base by base from
+     * both sides in turn, so RT = O(length of the cycle) rather than of the tree paths
+     *
+     * @return base of the LCA blossom
+     */
+    int lowestCommonAncestor(int u, int v) {
+        // u side marks with stamp, v side with stamp + 1
+        if (ancestorStamp > Integer.MAX_VALUE - 2) {
+            clearAncestorMarks();
+            ancestorStamp = 0;
+        }
+        int stampA = ++ancestorStamp;
+        int stampB = ++ancestorStamp;
+
+        int a = findBase(u);
+        int b = findBase(v);
+        while (true) {
+            if (a != 0) {
+                if (ancestorMark(a) == stampB) {
+                    return a;
+                }
+                setAncestorMark(a, stampA);
+                int m = mate(a);
+                a = m == 0 ? 0 : findBase(parent(m));
+            }
+            if (b != 0) {
+                if (ancestorMark(b) == stampA) {
+                    return b;
+                }
+                setAncestorMark(b, stampB);
+                int m = mate(b);
+                b = m == 0 ? 0 : findBase(parent(m));
+            }
+        }
+    }
+
+    /**
+     * Contract the odd cycle closed by edge (u, v), both outer in the same tree.
+     * Only the bases on the two tree paths are visited, RT = O(number of blossoms merged)
+     */
+    void shrinkCycle(int u, int v) {
+        int b = lowestCommonAncestor(u, v);
+        cycleDepth = 0;
+        int steps = markCyclePath(u, v, b) + markCyclePath(v, u, b);
+
+        if (stats != null) {
+            // the cycle holds the base blossom and two sub-blossoms per step
+            int depth = Math.max(cycleDepth, blossomDepth[b]) + 1;
+            blossomDepth[b] = depth;
+            stats.blossoms++;
+            stats.blossomNodes += 2 * steps + 1;
+            stats.maxBlossomDepth = Math.max(stats.maxBlossomDepth, depth);
+        }
+    }
+
+    /**
+     * Walk from x up to base b, turning the inner nodes on the way outer
+     *
+     * @param x end of the closing edge on this side
+     * @param y other end of the closing edge
+     * @param b base of the new blossom
+     * @return number of outer blossoms passed
+     */
+    int markCyclePath(int x, int y, int b) {
+        int steps = 0;
+        int bx = findBase(x);
+        while (bx != b) {
+            int t = mate(bx);
+            steps++;
+            if (blossomDepth != null) {
+                cycleDepth = Math.max(cycleDepth, blossomDepth[bx]);
+            }
+
+            setRawLabel(t, epoch + OUTER);
+            setBridgeFrom(t, x);
+            setBridgeTo(t, y);
+            setQueue(queueTail++, t);
+
+            unionBlossom(bx, b);
+            unionBlossom(t, b);
+
+            bx = findBase(parent(t));
+        }
+        return steps;
+    }
+
+    /**
+     * Match v with w, then flip the alternating path from v up to its root.
+     * <p>
+     * The path of an outer node v is v, mate(v), then the path of parent(mate(v)). For a
+     * node that became outer in a blossom with bridge (x, y) it is the path of x walked back
+     * down to v, then y and the path of y. Pairs still to flip are kept on a stack of up to
+     * 2 (numVertices + 1) entries.
+     *
+     * @param v outer node
+     * @param w new mate of v
+     */
+    void augmentPath(int v, int w) {
+        long top = 0;
+        setPending(top++, v);
+        setPending(top++, w);
+
+        while (top > 0) {
+            w = pending(--top);
+            v = pending(--top);
+
+            int t = mate(v);
+            setMate(v, w);
+            if (t == 0 || mate(t) != v) {
+                // v was the root, or the walk back from a bridge reached its blossom node
+                continue;
+            }
+
+            int x = bridgeFrom(v);
+            if (x == 0) {
+                x = parent(t);
+                setMate(t, x);
+                setPending(top++, x);
+                setPending(top++, t);
+            } else {
+                int y = bridgeTo(v);
+                setPending(top++, x);
+                setPending(top++, y);
+                setPending(top++, y);
+                setPending(top++, x);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Snapshots of the matching between the phases of a long solve, so a killed run resumes
+ * from the last one with a warm start instead of starting over. Little endian ints:
+ * <pre>
+ * magic "MMCK", version, numVertices, numEdges, phases done, mate[0 ... numVertices]
+ * </pre>
+ * The vertex and edge counts guard against resuming on another graph. A snapshot is
+ * written to a temporary file that then replaces the last one, so a kill during a write
+ * leaves the previous one intact. The solver calls {@link #phaseDone} after every phase and a
+ * snapshot is written once interval has passed since the last, so a phase only costs a
+ * clock read. A failed write is reported once on stderr and does not stop the solve.
+ */
+public class Checkpoint {
+    static final int MAGIC = 'M' | 'M' << 8 | 'C' << 16 | 'K' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 5;
+
+    final Path path;
+    final long intervalNanos;
+    long lastWrite;
+
+    // phases done in this run and the runs it resumed
+    int phases;
+    int numWritten;
+    boolean failed;
+
+    /**
+     * @param interval seconds between snapshots
+     */
+    public Checkpoint(String path, double interval) {
+        this.path = Paths.get(path);
+        this.intervalNanos = (long) (interval * 1e9);
+        this.lastWrite = System.nanoTime();
+    }
+
+    /**
+     * Give solver the checkpoint, for the solvers that have phases over one whole matching
+     *
+     * @throws IllegalArgumentException for any other solver, e.g. a {@link ComponentSolver},
+     *                                  whose components have no matching of the graph to snapshot
+     */
+    static void attach(MatchingSolver solver, Checkpoint checkpoint) {
+        if (solver instanceof EdmondsSolver) {
+            ((EdmondsSolver) solver).checkpoint = checkpoint;
+        } else if (solver instanceof MultiPathSolver) {
+            ((MultiPathSolver) solver).checkpoint = checkpoint;
+        } else if (solver instanceof HopcroftKarpSolver) {
+            ((HopcroftKarpSolver) solver).checkpoint = checkpoint;
+        } else if (solver instanceof WeightedMatchingSolver) {
+            ((WeightedMatchingSolver) solver).checkpoint = checkpoint;
+        } else {
+            throw new IllegalArgumentException(solver.getClass().getSimpleName() + " does not take a checkpoint");
+        }
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    /**
+     * Count a phase and write a snapshot if it is time to
+     */
+    void phaseDone(Graph graph, int[] mate) {
+        phases++;
+        long now = System.nanoTime();
+        if (now - lastWrite < intervalNanos) {
+            return;
+        }
+        try {
+            write(graph, mate);
+        } catch (IOException e) {
+            if (!failed) {
+                System.err.println("Cannot write checkpoint " + path + ": " + e);
+                failed = true;
+            }
+        }
+        lastWrite = System.nanoTime();
+    }
+
+    /**
+     * Snapshot mate now
+     */
+    public void write(Graph graph, int[] mate) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer block = ByteBuffer.allocateDirect(BinaryGraphFile.BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+            block.putInt(MAGIC).putInt(VERSION).putInt(graph.numVertices).putInt(graph.numEdges).putInt(phases);
+            BinaryGraphFile.writeInts(file, block, mate.length == graph.numVertices + 1
+                    ? mate : Arrays.copyOf(mate, graph.numVertices + 1));
+            BinaryGraphFile.flush(file, block);
+            file.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        numWritten++;
+    }
+
+    /**
+     * Load the last snapshot and carry its phase count on
+     *
+     * @return mate array of graph, for {@link MaximumMatching#procedure(int[])}
+     */
+    public int[] read(Graph graph) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4 * HEADER_INTS).order(ByteOrder.LITTLE_ENDIAN);
+            if (file.read(head, 0) != head.capacity() || head.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a checkpoint");
+            }
+            if (head.getInt(4) != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + head.getInt(4));
+            }
+            if (head.getInt(8) != graph.numVertices || head.getInt(12) != graph.numEdges) {
+                throw new IOException(path + " is a checkpoint of a graph of " + head.getInt(8) + " vertices and "
+                        + head.getInt(12) + " edges, not of this one");
+            }
+            int[] mate = new int[graph.numVertices + 1];
+            if (file.size() != 4L * (HEADER_INTS + mate.length)) {
+                throw new IOException(path + " is truncated");
+            }
+            BinaryGraphFile.readInts(file, 4L * HEADER_INTS, mate);
+            phases = head.getInt(16);
+            return mate;
+        }
+    }
+
+    public int getPhases() {
+        return phases;
+    }
+
+    public int getNumWritten() {
+        return numWritten;
+    }
+}
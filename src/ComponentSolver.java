@@ -0,0 +1,290 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Solve every connected component on its own, in parallel.
+ * <p>
+ * Components are found once by a lock-free union-find over the edges, then every
+ * component is copied into its own small graph with local ids and solved on a fork/join
+ * pool by a fresh solver, so no solver state is shared between threads. The results land
+ * in disjoint entries of the global mate array. The pool is the solver's own, close it
+ * once done.
+ */
+public class ComponentSolver implements MatchingSolver, AutoCloseable {
+    // vertices per union task, edges per solve task
+    static final int UNION_GRAIN = 1 << 14;
+    static final int SOLVE_GRAIN = 1 << 16;
+
+    // engine for every component, see MaximumMatching#solverFor, null picks per component
+    final String solverName;
+    final ForkJoinPool pool;
+
+    // counters, null when instrumentation is off; every component counts on its own and is
+    // added in at the end, so the search time is summed over the threads
+    SolverStats stats;
+
+    /**
+     * @param solverName  engine for each component, null for Hopcroft-Karp on bipartite
+     *                    components and Edmonds on the others
+     * @param parallelism number of worker threads
+     */
+    public ComponentSolver(String solverName, int parallelism) {
+        if (solverName != null && MaximumMatching.solverFor(solverName) == null) {
+            throw new IllegalArgumentException("Unknown solver " + solverName);
+        }
+        this.solverName = solverName;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    @Override
+    public int solve(Graph graph, int[] mate) {
+        int n = graph.numVertices;
+
+        AtomicIntegerArray parent = new AtomicIntegerArray(n + 1);
+        for (int v = 0; v <= n; v++) {
+            parent.set(v, v);
+        }
+        pool.invoke(new UnionTask(graph, parent, 1, n + 1));
+
+        // number the components that have an edge, then bucket their vertices
+        int[] component = new int[n + 1];
+        int numComponents = 0;
+        for (int v = 1; v <= n; v++) {
+            if (graph.degree(v) > 0 && find(parent, v) == v) {
+                component[v] = ++numComponents;
+            }
+        }
+
+        int[] start = new int[numComponents + 2];
+        int[] edges = new int[numComponents + 1];
+        for (int v = 1; v <= n; v++) {
+            if (graph.degree(v) > 0) {
+                int c = component[find(parent, v)];
+                component[v] = c;
+                start[c + 1]++;
+                edges[c] += graph.degree(v);
+            }
+        }
+        for (int c = 1; c <= numComponents + 1; c++) {
+            start[c] += start[c - 1];
+        }
+
+        // members of component c are members[start[c] ...], localId[v] is 1-based within them
+        int[] members = new int[start[numComponents + 1]];
+        int[] localId = new int[n + 1];
+        int[] fill = java.util.Arrays.copyOf(start, numComponents + 1);
+        for (int v = 1; v <= n; v++) {
+            if (graph.degree(v) > 0) {
+                int c = component[v];
+                localId[v] = fill[c] - start[c] + 1;
+                members[fill[c]++] = v;
+            }
+        }
+
+        pool.invoke(new SolveTask(new Components(graph, mate, start, members, localId, edges), 1, numComponents + 1));
+
+        int num = 0;
+        for (int v = 1; v <= n; v++) {
+            if (mate[v] != 0) {
+                num++;
+            }
+        }
+        return num;
+    }
+
+    static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) {
+                return v;
+            }
+            int grandParent = parent.get(p);
+            if (grandParent != p) {
+                // path halving, losing the race is harmless
+                parent.compareAndSet(v, p, grandParent);
+            }
+            v = grandParent;
+        }
+    }
+
+    /**
+     * Link the larger root under the smaller one, retry if another thread moved a root
+     */
+    static void union(AtomicIntegerArray parent, int u, int v) {
+        while (true) {
+            u = find(parent, u);
+            v = find(parent, v);
+            if (u == v) {
+                return;
+            }
+            if (u < v) {
+                int swap = u;
+                u = v;
+                v = swap;
+            }
+            if (parent.compareAndSet(u, u, v)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Union the edges of the vertices [from, to)
+     */
+    static class UnionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Graph graph;
+        final AtomicIntegerArray parent;
+        final int from;
+        final int to;
+
+        UnionTask(Graph graph, AtomicIntegerArray parent, int from, int to) {
+            this.graph = graph;
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > UNION_GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new UnionTask(graph, parent, from, middle),
+                        new UnionTask(graph, parent, middle, to));
+                return;
+            }
+
+            for (int u = from; u < to; u++) {
+                for (int e = graph.offset[u], end = graph.offset[u + 1]; e < end; e++) {
+                    int v = graph.target[e];
+                    if (v > u) {
+                        union(parent, u, v);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shared, read-only layout of the components
+     */
+    static class Components {
+        final Graph graph;
+        final int[] mate;
+        final int[] start;
+        final int[] members;
+        final int[] localId;
+        // sum of the degrees of the members
+        final int[] edges;
+
+        Components(Graph graph, int[] mate, int[] start, int[] members, int[] localId, int[] edges) {
+            this.graph = graph;
+            this.mate = mate;
+            this.start = start;
+            this.members = members;
+            this.localId = localId;
+            this.edges = edges;
+        }
+    }
+
+    /**
+     * Solve the components [from, to), splitting while they hold many edges
+     */
+    class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Components components;
+        final int from;
+        final int to;
+
+        SolveTask(Components components, int from, int to) {
+            this.components = components;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                long work = 0;
+                for (int c = from; c < to; c++) {
+                    work += components.edges[c];
+                }
+                if (work > SOLVE_GRAIN) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new SolveTask(components, from, middle), new SolveTask(components, middle, to));
+                    return;
+                }
+            }
+
+            for (int c = from; c < to; c++) {
+                solveComponent(c);
+            }
+        }
+
+        /**
+         * Copy component c into a graph of its own, solve it and write the mates back
+         */
+        private void solveComponent(int c) {
+            Graph graph = components.graph;
+            int[] mate = components.mate;
+            int[] members = components.members;
+            int[] localId = components.localId;
+            int first = components.start[c];
+            int size = components.start[c + 1] - first;
+            int numEntries = components.edges[c];
+
+            int[] offset = new int[size + 2];
+            int[] target = new int[numEntries];
+            int[] weight = new int[numEntries];
+            int k = 0;
+            for (int i = 1; i <= size; i++) {
+                int v = members[first + i - 1];
+                offset[i] = k;
+                for (int e = graph.offset[v], end = graph.offset[v + 1]; e < end; e++) {
+                    target[k] = localId[graph.target[e]];
+                    weight[k++] = graph.weight[e];
+                }
+            }
+            offset[size + 1] = k;
+            Graph local = new Graph(size, offset, target, weight);
+
+            int[] localMate = new int[size + 1];
+            for (int i = 1; i <= size; i++) {
+                int m = mate[members[first + i - 1]];
+                localMate[i] = m == 0 ? 0 : localId[m];
+            }
+
+            MatchingSolver solver = solverName == null
+                    ? MaximumMatching.defaultSolver(local)
+                    : MaximumMatching.solverFor(solverName);
+            if (stats == null) {
+                solver.solve(local, localMate);
+            } else {
+                SolverStats componentStats = new SolverStats();
+                SolverStats.attach(solver, componentStats);
+                solver.solve(local, localMate);
+                stats.add(componentStats);
+            }
+
+            for (int i = 1; i <= size; i++) {
+                int m = localMate[i];
+                mate[members[first + i - 1]] = m == 0 ? 0 : members[first + m - 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.Arrays;
+
+/**
+ * Maximum cardinality matching of a graph that changes by single edges and vertices.
+ * <p>
+ * Every update keeps the matching maximum with at most two augmenting path searches, each
+ * grown from one root by the blossom search of {@link EdmondsSolver}, so an update only
+ * visits the alternating region around its end points. Weights are not kept.
+ * <ul>
+ * <li>insert (u, v): an augmenting path must use the new edge. With a free end point it
+ * is searched from there. With both ends matched the matching grows iff some maximum
+ * matching leaves u and v free: u is freed and its old mate searches a path avoiding u,
+ * then the same for v avoiding both, and u - v is matched if both succeed.</li>
+ * <li>delete a matched edge or vertex: only its former mates can start an augmenting
+ * path, one search from each of them, until one succeeds, restores the maximum.</li>
+ * </ul>
+ */
+public class DynamicMatching {
+    int numVertices;
+
+    // neighbors of v are adjacency[v][0 ... degree[v] - 1]
+    int[][] adjacency;
+    int[] degree;
+    boolean[] deleted;
+
+    int[] mate;
+    int numMatched;
+
+    final Search search = new Search();
+
+    /**
+     * @param numVertices vertices 1 ... numVertices, no edges
+     */
+    public DynamicMatching(int numVertices) {
+        this.numVertices = numVertices;
+        adjacency = new int[numVertices + 1][];
+        degree = new int[numVertices + 1];
+        deleted = new boolean[numVertices + 1];
+        mate = new int[numVertices + 1];
+        for (int v = 0; v <= numVertices; v++) {
+            adjacency[v] = new int[2];
+        }
+        search.grow(this, numVertices + 1);
+    }
+
+    /**
+     * Start from the edges of graph, solved from scratch once
+     */
+    public DynamicMatching(Graph graph) {
+        this(graph.numVertices);
+
+        for (int v = 1; v <= numVertices; v++) {
+            adjacency[v] = Arrays.copyOfRange(graph.target, graph.offset[v], graph.offset[v + 1]);
+            degree[v] = adjacency[v].length;
+        }
+
+        InitialMatching.KARP_SIPSER.match(graph, mate);
+        numMatched = MaximumMatching.defaultSolver(graph).solve(graph, mate);
+        search.grow(this, numVertices + 1);
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * @return number of matched nodes
+     */
+    public int getNumMatched() {
+        return numMatched;
+    }
+
+    /**
+     * @return the node matched to v, 0 if v is free
+     */
+    public int mate(int v) {
+        return mate[v];
+    }
+
+    /**
+     * @return the new vertex, free and without edges
+     */
+    public int insertVertex() {
+        numVertices++;
+        if (numVertices == adjacency.length) {
+            int capacity = adjacency.length * 2;
+            adjacency = Arrays.copyOf(adjacency, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+            mate = Arrays.copyOf(mate, capacity);
+            search.grow(this, capacity);
+        }
+        adjacency[numVertices] = new int[2];
+        return numVertices;
+    }
+
+    /**
+     * Remove v and its edges, the id is not reused
+     */
+    public void deleteVertex(int v) {
+        check(v);
+
+        int m = mate[v];
+        if (m != 0) {
+            mate[v] = 0;
+            mate[m] = 0;
+            numMatched -= 2;
+        }
+        for (int i = 0; i < degree[v]; i++) {
+            removeNeighbor(adjacency[v][i], v);
+        }
+        degree[v] = 0;
+        adjacency[v] = new int[0];
+        deleted[v] = true;
+
+        if (m != 0) {
+            augmentFrom(m);
+        }
+    }
+
+    /**
+     * @return false if the edge is already there or is a self loop
+     */
+    public boolean insertEdge(int u, int v) {
+        check(u);
+        check(v);
+        if (u == v || indexOf(u, v) >= 0) {
+            return false;
+        }
+        addNeighbor(u, v);
+        addNeighbor(v, u);
+
+        if (mate[u] == 0 && mate[v] == 0) {
+            mate[u] = v;
+            mate[v] = u;
+            numMatched += 2;
+        } else if (mate[u] == 0) {
+            augmentFrom(u);
+        } else if (mate[v] == 0) {
+            augmentFrom(v);
+        } else if (freeUp(u, 0) && (mate[v] == 0 || freeUp(v, u))) {
+            mate[u] = v;
+            mate[v] = u;
+            numMatched += 2;
+        }
+        return true;
+    }
+
+    /**
+     * Look for a maximum matching that leaves v free: unmatch v and rematch its mate by a
+     * path that avoids v and excluded. A failed search changes nothing, so the pair is put
+     * back as it was.
+     *
+     * @param excluded node that must stay free as well, 0 for none
+     * @return true if v is free now and the matching is as large as before
+     */
+    private boolean freeUp(int v, int excluded) {
+        int m = mate[v];
+        mate[v] = 0;
+        mate[m] = 0;
+        if (search.augmentFrom(m, v, excluded)) {
+            return true;
+        }
+        mate[v] = m;
+        mate[m] = v;
+        return false;
+    }
+
+    /**
+     * @return false if there is no such edge
+     */
+    public boolean deleteEdge(int u, int v) {
+        check(u);
+        check(v);
+        if (indexOf(u, v) < 0) {
+            return false;
+        }
+        removeNeighbor(u, v);
+        removeNeighbor(v, u);
+
+        if (mate[u] == v) {
+            mate[u] = 0;
+            mate[v] = 0;
+            numMatched -= 2;
+            if (!augmentFrom(u)) {
+                augmentFrom(v);
+            }
+        }
+        return true;
+    }
+
+    private boolean augmentFrom(int r) {
+        if (search.augmentFrom(r, 0, 0)) {
+            numMatched += 2;
+            return true;
+        }
+        return false;
+    }
+
+    private void check(int v) {
+        if (v < 1 || v > numVertices || deleted[v]) {
+            throw new IllegalArgumentException("No vertex " + v);
+        }
+    }
+
+    private int indexOf(int u, int v) {
+        int[] neighbors = adjacency[u];
+        for (int i = 0; i < degree[u]; i++) {
+            if (neighbors[i] == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addNeighbor(int u, int v) {
+        if (degree[u] == adjacency[u].length) {
+            adjacency[u] = Arrays.copyOf(adjacency[u], Math.max(2, 2 * degree[u]));
+        }
+        adjacency[u][degree[u]++] = v;
+    }
+
+    /**
+     * Swap v with the last neighbor of u and drop it
+     */
+    private void removeNeighbor(int u, int v) {
+        int i = indexOf(u, v);
+        adjacency[u][i] = adjacency[u][--degree[u]];
+    }
+
+    /**
+     * The blossom search of EdmondsSolver grown from a single root over the adjacency lists
+     */
+    static class Search extends EdmondsSolver {
+        DynamicMatching owner;
+
+        /**
+         * Resize the state to size nodes, new nodes start unlabeled, the rest of their state
+         * is set when they get labeled
+         */
+        void grow(DynamicMatching owner, int size) {
+            this.owner = owner;
+            mate = owner.mate;
+
+            int old = label == null ? 0 : label.length;
+            if (old >= size) {
+                return;
+            }
+            if (label == null) {
+                label = new int[size];
+                root = new int[size];
+                parent = new int[size];
+                bridgeFrom = new int[size];
+                bridgeTo = new int[size];
+                blossom = new int[size];
+                base = new int[size];
+                ancestorMark = new int[size];
+                queue = new int[size];
+                pending = new int[2 * size];
+            } else {
+                label = Arrays.copyOf(label, size);
+                root = Arrays.copyOf(root, size);
+                parent = Arrays.copyOf(parent, size);
+                bridgeFrom = Arrays.copyOf(bridgeFrom, size);
+                bridgeTo = Arrays.copyOf(bridgeTo, size);
+                blossom = Arrays.copyOf(blossom, size);
+                base = Arrays.copyOf(base, size);
+                ancestorMark = Arrays.copyOf(ancestorMark, size);
+                queue = Arrays.copyOf(queue, size);
+                pending = Arrays.copyOf(pending, 2 * size);
+            }
+        }
+
+        /**
+         * Grow an alternating tree from the free node r and flip the first augmenting path,
+         * RT = O(size of the tree)
+         *
+         * @param skipA node the path must avoid, 0 for none
+         * @param skipB another one
+         * @return true if r got matched
+         */
+        boolean augmentFrom(int r, int skipA, int skipB) {
+            nextEpoch();
+            int[][] adjacency = owner.adjacency;
+            int[] degree = owner.degree;
+
+            // inner nodes are never entered from outside the tree, which hides them
+            label[skipA] = epoch + INNER;
+            label[skipB] = epoch + INNER;
+
+            queueHead = 0;
+            queueTail = 0;
+            plantRoot(r);
+
+            while (queueHead < queueTail) {
+                int u = queue[queueHead++];
+                int[] neighbors = adjacency[u];
+
+                for (int i = 0, end = degree[u]; i < end; i++) {
+                    int v = neighbors[i];
+                    int labelV = label(v);
+
+                    if (labelV == UNLABELED) {
+                        int x = mate[v];
+                        if (x == 0) {
+                            // r ... u - v
+                            augmentPath(u, v);
+                            mate[v] = u;
+                            return true;
+                        }
+                        growTree(u, v, x);
+                    } else if (labelV == OUTER && findBase(u) != findBase(v)) {
+                        shrinkCycle(u, v);
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Byte level reader of the text edge list: a header line "n m", then one "u v w" line per
+ * edge, up to the end of input or the first empty line. Integers are decoded straight from
+ * a reused byte buffer, so nothing is allocated per line.
+ * <p>
+ * A file can also be cut at line boundaries into chunks that are memory mapped and parsed
+ * in parallel, each into its own edge arrays, which are then handed to the builder in
+ * file order.
+ */
+public class EdgeListParser {
+    static final int BUFFER_SIZE = 1 << 16;
+    // files below this are not worth splitting
+    static final long PARALLEL_THRESHOLD = 1 << 24;
+    // a mapping cannot exceed 2 GB
+    static final long MAX_CHUNK = 1L << 30;
+
+    /**
+     * Receives the input as it is parsed
+     */
+    public interface EdgeVisitor {
+        void header(int numVertices, int numEdges);
+
+        void edge(int u, int v, int weight);
+    }
+
+    // exactly one of them is the source
+    final ReadableByteChannel channel;
+    final MappedByteBuffer mapped;
+
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    int position;
+    int limit;
+    // input offset of buffer[0], for error messages
+    long bufferStart;
+
+    EdgeListParser(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.mapped = null;
+    }
+
+    EdgeListParser(MappedByteBuffer mapped, long start) {
+        this.channel = null;
+        this.mapped = mapped;
+        this.bufferStart = start;
+    }
+
+    /**
+     * Stream the header and the edges of the input to visitor
+     */
+    public static void parse(ReadableByteChannel channel, EdgeVisitor visitor) throws IOException {
+        EdgeListParser parser = new EdgeListParser(channel);
+        parser.readHeader(visitor);
+        parser.readEdges(visitor);
+    }
+
+    /**
+     * Read the whole input into a graph
+     */
+    public static Graph parse(ReadableByteChannel channel) throws IOException {
+        BuilderFeed feed = new BuilderFeed();
+        parse(channel, feed);
+        return feed.builder.build();
+    }
+
+    /**
+     * Read a file into a graph, in parallel chunks when threads > 1 and the file is large
+     *
+     * @param path    edge list file
+     * @param threads number of chunks parsed at once
+     */
+    public static Graph parse(String path, int threads) throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = file.size();
+            if (threads <= 1 || size < PARALLEL_THRESHOLD) {
+                return parse(file);
+            }
+
+            BuilderFeed feed = new BuilderFeed();
+            EdgeListParser head = new EdgeListParser(
+                    file.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_CHUNK)), 0);
+            head.readHeader(feed);
+            long bodyStart = head.offset();
+
+            // cut the body at the first line start after every nominal boundary
+            int numChunks = (int) Math.max(threads, (size - bodyStart + MAX_CHUNK - 1) / MAX_CHUNK);
+            long[] boundary = new long[numChunks + 1];
+            boundary[0] = bodyStart;
+            boundary[numChunks] = size;
+            for (int i = 1; i < numChunks; i++) {
+                long nominal = bodyStart + (size - bodyStart) * i / numChunks;
+                boundary[i] = Math.max(boundary[i - 1], nextLineStart(file, nominal, size));
+            }
+
+            List<Chunk> chunks = new ArrayList<>(numChunks);
+            for (int i = 0; i < numChunks; i++) {
+                if (boundary[i] < boundary[i + 1]) {
+                    chunks.add(new Chunk(file, boundary[i], boundary[i + 1]));
+                }
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (Future<Chunk> future : pool.invokeAll(chunks)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+
+            Graph.Builder builder = feed.builder;
+            for (Chunk chunk : chunks) {
+                builder.addEdges(chunk.from, chunk.to, chunk.weights, chunk.numEdges);
+                if (chunk.stopped) {
+                    break; // an empty line ends the input
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * First offset at or after position that starts a line, size if there is none
+     */
+    static long nextLineStart(FileChannel file, long position, long size) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        // the line starts at position if the byte before it ends a line
+        long at = position - 1;
+        while (at < size) {
+            window.clear();
+            int read = file.read(window, at);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return size;
+    }
+
+    long offset() {
+        return bufferStart + position;
+    }
+
+    /**
+     * Refill the buffer, RT = O(BUFFER_SIZE) per call
+     *
+     * @return false at the end of input
+     */
+    private boolean fill() throws IOException {
+        bufferStart += limit;
+        position = 0;
+        limit = 0;
+
+        if (mapped != null) {
+            int length = Math.min(buffer.length, mapped.remaining());
+            mapped.get(buffer, 0, length);
+            limit = length;
+            return length > 0;
+        }
+
+        ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+        int read;
+        do {
+            read = channel.read(wrapper);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    /**
+     * @return next byte without consuming it, -1 at the end of input
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Skip spaces and tabs, then decode a signed decimal integer
+     */
+    private int readInt() throws IOException {
+        long start = offset();
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IOException("Integer " + value + " out of range at byte " + start);
+        }
+        return (int) value;
+    }
+
+    private long readLong() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t') {
+            position++;
+            c = peek();
+        }
+
+        boolean negative = false;
+        if (c == '-') {
+            negative = true;
+            position++;
+            c = peek();
+        }
+        if (c < '0' || c > '9') {
+            throw new IOException("Expected an integer at byte " + offset());
+        }
+
+        // accumulated negative, which also holds Long.MIN_VALUE
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            int digit = c - '0';
+            if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) {
+                throw new IOException("Integer out of range at byte " + offset());
+            }
+            value = value * 10 - digit;
+            position++;
+            c = peek();
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            throw new IOException("Integer out of range at byte " + offset());
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Consume the rest of the current line, including its line break
+     */
+    private void skipLine() throws IOException {
+        int c = peek();
+        while (c != -1 && c != '\n') {
+            position++;
+            c = peek();
+        }
+        if (c == '\n') {
+            position++;
+        }
+    }
+
+    /**
+     * @return false at the end of input or at an empty line
+     */
+    private boolean atLine() throws IOException {
+        int c = peek();
+        if (c == '\r') {
+            position++;
+            c = peek();
+        }
+        return c != -1 && c != '\n';
+    }
+
+    void readHeader(EdgeVisitor visitor) throws IOException {
+        if (!atLine()) {
+            throw new IOException("Missing header line");
+        }
+        int numVertices = readInt();
+        // only a size hint, past 2^31 for graphs that are converted off-heap
+        int numEdges = (int) Math.min(readLong(), Integer.MAX_VALUE);
+        skipLine();
+        visitor.header(numVertices, numEdges);
+    }
+
+    /**
+     * @return true if an empty line ended the input, false at the end of input
+     */
+    boolean readEdges(EdgeVisitor visitor) throws IOException {
+        while (atLine()) {
+            int u = readInt();
+            int v = readInt();
+            int weight = readInt();
+            skipLine();
+            visitor.edge(u, v, weight);
+        }
+        return peek() != -1;
+    }
+
+    /**
+     * Collect the input into a graph builder sized by the header
+     */
+    static class BuilderFeed implements EdgeVisitor {
+        Graph.Builder builder;
+
+        @Override
+        public void header(int numVertices, int numEdges) {
+            if (numEdges > Integer.MAX_VALUE / 2) {
+                // every edge is stored twice
+                throw new IllegalArgumentException("Input has more edges than a Graph holds,"
+                        + " convert it with BinaryGraphFile --large");
+            }
+            builder = new Graph.Builder(numVertices, numEdges);
+        }
+
+        @Override
+        public void edge(int u, int v, int weight) {
+            builder.addEdge(u, v, weight);
+        }
+    }
+
+    /**
+     * Edges of the byte range [start, end) of the file, parsed from a mapping of that range
+     */
+    static class Chunk implements Callable<Chunk>, EdgeVisitor {
+        final FileChannel file;
+        final long start;
+        final long end;
+
+        int[] from;
+        int[] to;
+        int[] weights;
+        int numEdges;
+        // an empty line ended the input inside this chunk
+        boolean stopped;
+
+        Chunk(FileChannel file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Chunk call() throws IOException {
+            // a guess at the line length, the arrays grow if it is too long
+            int capacity = (int) Math.max(16, (end - start) / 16);
+            from = new int[capacity];
+            to = new int[capacity];
+            weights = new int[capacity];
+
+            EdgeListParser parser = new EdgeListParser(
+                    file.map(FileChannel.MapMode.READ_ONLY, start, end - start), start);
+            stopped = parser.readEdges(this);
+            return this;
+        }
+
+        @Override
+        public void header(int numVertices, int numEdges) {
+            // the header is not in any chunk
+        }
+
+        @Override
+        public void edge(int u, int v, int weight) {
+            if (numEdges == from.length) {
+                int capacity = from.length * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            from[numEdges] = u;
+            to[numEdges] = v;
+            weights[numEdges] = weight;
+            numEdges++;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.Arrays;
+
+/**
+ * Edmonds' blossom algorithm, one phase per augmenting path, see {@link BlossomSearch} for
+ * the phase. It costs O(m alpha(n)), so the whole solve O(n m alpha(n)).
+ * <p>
+ * Labels carry the epoch of their phase, so a new phase starts by moving the epoch instead
+ * of clearing anything, and the rest of the state of a node is set when it is labeled.
+ * Queue, path stack and marks are int arrays that are kept for the next solve, so once
+ * they fit the graph a solve allocates nothing.
+ */
+public class EdmondsSolver extends BlossomSearch implements MatchingSolver {
+    Graph graph;
+    int[] mate;
+
+    // label[v] - epoch is the label of v in this phase, UNLABELED if it is not above 0
+    int[] label;
+    // tree root of a labeled node
+    int[] root;
+    // inner node: the outer node it was reached from
+    int[] parent;
+    // outer node that was inner before a blossom took it: the closing edge of that blossom,
+    // bridgeFrom on the side of the node, 0 for nodes labeled outer in the tree
+    int[] bridgeFrom;
+    int[] bridgeTo;
+
+    // union-find forest over the labeled nodes, one set per contracted blossom, base[r] is
+    // the base of set r
+    int[] blossom;
+    int[] base;
+
+    // marks for lowestCommonAncestor
+    int[] ancestorMark;
+
+    // outer nodes to scan, every node enters at most once per phase
+    int[] queue;
+
+    // indexed by root, trees that already gave an augmenting path in this phase
+    boolean[] dead;
+
+    // free nodes
+    int[] free;
+
+    // (v, w) pairs waiting in augmentPath
+    int[] pending;
+
+    // snapshots between phases, null for none
+    Checkpoint checkpoint;
+
+    public EdmondsSolver() {
+        super(false);
+    }
+
+    @Override
+    public int solve(Graph graph, int[] mate) {
+        init(graph, mate);
+
+        if (stats == null && checkpoint == null) {
+            while (buildAlternatingTree() > 0) {
+                // one more pair per augmenting path
+            }
+            return countMatched();
+        }
+
+        while (true) {
+            long start = stats != null ? System.nanoTime() : 0;
+            int found = buildAlternatingTree();
+            if (stats != null) {
+                stats.phases++;
+                stats.augmentations += found;
+                stats.searchNanos += System.nanoTime() - start;
+            }
+            if (found == 0) {
+                break;
+            }
+            if (checkpoint != null) {
+                checkpoint.phaseDone(graph, mate);
+            }
+        }
+        return countMatched();
+    }
+
+    /**
+     * Size the state for the nodes of graph and list the free ones
+     */
+    void init(Graph graph, int[] mate) {
+        this.graph = graph;
+        this.mate = mate;
+
+        int size = graph.numVertices + 1;
+        if (label == null || label.length < size) {
+            label = new int[size];
+            root = new int[size];
+            parent = new int[size];
+            bridgeFrom = new int[size];
+            bridgeTo = new int[size];
+            blossom = new int[size];
+            base = new int[size];
+            ancestorMark = new int[size];
+            queue = new int[size];
+            dead = new boolean[size];
+            free = new int[size];
+            pending = new int[2 * size];
+        }
+        if (stats != null && (blossomDepth == null || blossomDepth.length < size)) {
+            blossomDepth = new int[size];
+        }
+        listFree(graph.numVertices);
+    }
+
+    @Override
+    final int mate(int v) {
+        return mate[v];
+    }
+
+    @Override
+    final void setMate(int v, int m) {
+        mate[v] = m;
+    }
+
+    @Override
+    final int rawLabel(int v) {
+        return label[v];
+    }
+
+    @Override
+    final void setRawLabel(int v, int l) {
+        label[v] = l;
+    }
+
+    @Override
+    final int root(int v) {
+        return root[v];
+    }
+
+    @Override
+    final void setRoot(int v, int r) {
+        root[v] = r;
+    }
+
+    @Override
+    final int parent(int v) {
+        return parent[v];
+    }
+
+    @Override
+    final void setParent(int v, int p) {
+        parent[v] = p;
+    }
+
+    @Override
+    final int bridgeFrom(int v) {
+        return bridgeFrom[v];
+    }
+
+    @Override
+    final void setBridgeFrom(int v, int x) {
+        bridgeFrom[v] = x;
+    }
+
+    @Override
+    final int bridgeTo(int v) {
+        return bridgeTo[v];
+    }
+
+    @Override
+    final void setBridgeTo(int v, int y) {
+        bridgeTo[v] = y;
+    }
+
+    @Override
+    final int blossom(int v) {
+        return blossom[v];
+    }
+
+    @Override
+    final void setBlossom(int v, int b) {
+        blossom[v] = b;
+    }
+
+    @Override
+    final int base(int v) {
+        return base[v];
+    }
+
+    @Override
+    final void setBase(int v, int b) {
+        base[v] = b;
+    }
+
+    @Override
+    final int ancestorMark(int v) {
+        return ancestorMark[v];
+    }
+
+    @Override
+    final void setAncestorMark(int v, int stamp) {
+        ancestorMark[v] = stamp;
+    }
+
+    @Override
+    final boolean dead(int r) {
+        return dead[r];
+    }
+
+    @Override
+    final void setDead(int r, boolean dead) {
+        this.dead[r] = dead;
+    }
+
+    @Override
+    final int queue(int i) {
+        return queue[i];
+    }
+
+    @Override
+    final void setQueue(int i, int v) {
+        queue[i] = v;
+    }
+
+    @Override
+    final int free(int i) {
+        return free[i];
+    }
+
+    @Override
+    final void setFree(int i, int v) {
+        free[i] = v;
+    }
+
+    @Override
+    final int pending(long i) {
+        return pending[(int) i];
+    }
+
+    @Override
+    final void setPending(long i, int v) {
+        pending[(int) i] = v;
+    }
+
+    @Override
+    void clearLabels() {
+        Arrays.fill(label, 0);
+    }
+
+    @Override
+    void clearAncestorMarks() {
+        Arrays.fill(ancestorMark, 0);
+    }
+
+    /**
+     * Visit the edges of outer node u in the CSR arrays of the graph, overridden by searches
+     * over other adjacency lists
+     */
+    @Override
+    boolean scan(int u) {
+        int[] target = graph.target;
+        int begin = graph.offset[u];
+        int end = graph.offset[u + 1];
+        if (stats != null) {
+            stats.edgesScanned += end - begin;
+        }
+
+        for (int e = begin; e < end; e++) {
+            if (visit(u, target[e])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.Arrays;
+
+/**
+ * Undirected graph in compressed sparse row form, vertices are 1...n (0 is unused).
+ * Every edge is stored twice, once in the row of each end point, so the neighbors
+ * of v are target[offset[v]] ... target[offset[v + 1] - 1] and weight[] runs parallel
+ * to target[].
+ */
+public class Graph {
+    final int numVertices;
+    // number of undirected edges, target.length == 2 * numEdges
+    final int numEdges;
+
+    final int[] offset;
+    final int[] target;
+    final int[] weight;
+
+    Graph(int numVertices, int[] offset, int[] target, int[] weight) {
+        this.numVertices = numVertices;
+        this.numEdges = target.length / 2;
+        this.offset = offset;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    public int degree(int v) {
+        return offset[v + 1] - offset[v];
+    }
+
+    /**
+     * 2-color the graph by BFS, RT = O(n + m)
+     *
+     * @return side[v] is 1 or 2 and every edge joins the two sides, null if there is an odd cycle
+     */
+    public byte[] twoColoring() {
+        byte[] side = new byte[numVertices + 1];
+        return twoColoring(side, new int[numVertices]) ? side : null;
+    }
+
+    /**
+     * {@link #twoColoring()} into buffers of at least numVertices + 1 entries, e.g. pooled ones
+     *
+     * @return true if side holds a 2-coloring, false if there is an odd cycle
+     */
+    boolean twoColoring(byte[] side, int[] queue) {
+        Arrays.fill(side, 0, numVertices + 1, (byte) 0);
+
+        for (int s = 1; s <= numVertices; s++) {
+            if (side[s] != 0) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            side[s] = 1;
+            queue[tail++] = s;
+
+            while (head < tail) {
+                int u = queue[head++];
+                byte other = (byte) (3 - side[u]);
+
+                for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+                    int v = target[e];
+                    if (side[v] == 0) {
+                        side[v] = other;
+                        queue[tail++] = v;
+                    } else if (side[v] != other) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Collect an edge stream into primitive arrays, then lay it out as CSR in one pass
+     */
+    public static class Builder {
+        final int numVertices;
+        int numEdges;
+
+        int[] from;
+        int[] to;
+        int[] weights;
+
+        public Builder(int numVertices) {
+            this(numVertices, 16);
+        }
+
+        /**
+         * @param numVertices   vertices are 1...numVertices
+         * @param expectedEdges initial capacity, the header of the input usually knows it
+         */
+        public Builder(int numVertices, int expectedEdges) {
+            this.numVertices = numVertices;
+            int capacity = Math.max(expectedEdges, 16);
+            from = new int[capacity];
+            to = new int[capacity];
+            weights = new int[capacity];
+        }
+
+        /**
+         * Add undirected edge (u, v). Self loops can never be matched, so they are dropped.
+         */
+        public void addEdge(int u, int v, int weight) {
+            if (u < 1 || u > numVertices || v < 1 || v > numVertices) {
+                throw new IllegalArgumentException("Edge (" + u + ", " + v + ") out of range 1..." + numVertices);
+            }
+            if (u == v) {
+                return;
+            }
+
+            if (numEdges == from.length) {
+                int capacity = from.length * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+
+            from[numEdges] = u;
+            to[numEdges] = v;
+            weights[numEdges] = weight;
+            numEdges++;
+        }
+
+        /**
+         * Add the first count edges of three parallel arrays, see {@link #addEdge}
+         */
+        void addEdges(int[] from, int[] to, int[] weights, int count) {
+            for (int i = 0; i < count; i++) {
+                addEdge(from[i], to[i], weights[i]);
+            }
+        }
+
+        /**
+         * Counting sort the edge list by end point, RT = O(n + m)
+         *
+         * @return the graph, the builder should not be used afterwards
+         */
+        public Graph build() {
+            int[] offset = new int[numVertices + 2];
+            for (int i = 0; i < numEdges; i++) {
+                offset[from[i] + 1]++;
+                offset[to[i] + 1]++;
+            }
+            for (int v = 1; v <= numVertices + 1; v++) {
+                offset[v] += offset[v - 1];
+            }
+
+            int[] target = new int[2 * numEdges];
+            int[] weight = new int[2 * numEdges];
+            // next free slot of each row
+            int[] fill = Arrays.copyOf(offset, numVertices + 1);
+
+            for (int i = 0; i < numEdges; i++) {
+                int u = from[i];
+                int v = to[i];
+
+                target[fill[u]] = v;
+                weight[fill[u]++] = weights[i];
+                target[fill[v]] = u;
+                weight[fill[v]++] = weights[i];
+            }
+
+            // release the edge list before the solver starts
+            from = to = weights = null;
+
+            return new Graph(numVertices, offset, target, weight);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Synthetic workloads, generated as a stream of edges from a seed: the same parameters give
+ * the same graph on every run. Only the random generator and a few counters are kept, so a
+ * graph of any size is written in constant memory in the text format. The binary format
+ * is CSR, written as version 2 of {@link BinaryGraphFile} by generating the stream twice,
+ * once to count the degrees and once to fill the rows of the mapped file, so the graph is
+ * never in the heap either; read it with --off-heap.
+ * <p>
+ * Vertex ids are shuffled by a fixed bijection, so structure never lines up with the input
+ * order. Families:
+ * <ul>
+ * <li>uniform: endpoints drawn uniformly</li>
+ * <li>power-law: Chung-Lu, endpoints drawn with weight i^(-1 / (exponent - 1)), so the
+ * degrees follow a power law with the given exponent</li>
+ * <li>bipartite: uniform edges between the first and the second half</li>
+ * <li>planted: a hidden perfect matching mixed with uniform noise edges</li>
+ * <li>blossom: odd cycles of cycleLength chained together, every cycle with a chord into
+ * an earlier one, so searches keep contracting nested blossoms</li>
+ * </ul>
+ * Usage: GraphGenerator family numVertices averageDegree [--seed=s] [--exponent=x]
+ * [--cycle=k] [--max-weight=w] [--format=text|binary] [--output=file], writes stdout
+ * without output.
+ */
+public class GraphGenerator {
+    static final String[] FAMILIES = {"uniform", "power-law", "bipartite", "planted", "blossom"};
+
+    final String family;
+    final int numVertices;
+    final long numEdges;
+    final long seed;
+
+    // power-law degree exponent, above 2
+    double exponent = 2.5;
+    // odd length of the blossom cycles
+    int cycleLength = 5;
+    // weights are drawn from 1 ... maxWeight
+    int maxWeight = 100;
+
+    // id shuffle of the current stream: v -> (v - 1) * multiplier mod n + 1
+    int shuffleSize;
+    long multiplier;
+
+    /**
+     * @param family        see the class comment
+     * @param numVertices   vertices are 1 ... numVertices, blossom rounds it down to whole cycles
+     * @param averageDegree the graph has numVertices * averageDegree / 2 edges, blossom and
+     *                      planted need at least their structure
+     * @param seed          same seed, same graph
+     */
+    public GraphGenerator(String family, int numVertices, double averageDegree, long seed) {
+        boolean known = false;
+        for (String name : FAMILIES) {
+            known |= name.equals(family);
+        }
+        if (!known) {
+            throw new IllegalArgumentException("Unknown graph family " + family);
+        }
+        if (numVertices < 2) {
+            throw new IllegalArgumentException("Need at least 2 vertices");
+        }
+
+        this.family = family;
+        this.seed = seed;
+        long edges = Math.max(1, (long) (numVertices * averageDegree / 2));
+        if (family.equals("planted")) {
+            edges = Math.max(edges, numVertices / 2);
+        }
+        this.numEdges = edges;
+        this.numVertices = numVertices;
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * @return number of vertices of the graph, blossom drops the vertices of an incomplete cycle
+     */
+    public int getNumVertices() {
+        if (family.equals("blossom")) {
+            return numVertices / cycleLength * cycleLength;
+        }
+        return numVertices;
+    }
+
+    /**
+     * @return exact number of edges the stream will have
+     */
+    public long getNumEdges() {
+        if (family.equals("blossom")) {
+            long cycles = numVertices / cycleLength;
+            return cycles * cycleLength + 2 * Math.max(0, cycles - 1);
+        }
+        return numEdges;
+    }
+
+    int shuffle(long v) {
+        return (int) ((v - 1) * multiplier % shuffleSize) + 1;
+    }
+
+    int weight(Random random) {
+        return 1 + random.nextInt(maxWeight);
+    }
+
+    /**
+     * Stream the header and then every edge to visitor
+     */
+    public void generate(EdgeListParser.EdgeVisitor visitor) {
+        if (getNumEdges() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many edges " + getNumEdges());
+        }
+        if (family.equals("blossom") && (cycleLength < 3 || cycleLength % 2 == 0)) {
+            throw new IllegalArgumentException("Cycle length must be odd and at least 3");
+        }
+        if (family.equals("blossom") && numVertices < cycleLength) {
+            throw new IllegalArgumentException("Need at least one cycle of " + cycleLength + " vertices");
+        }
+        if (family.equals("power-law") && exponent <= 2) {
+            throw new IllegalArgumentException("Power-law exponent must be above 2");
+        }
+
+        Random random = new Random(seed);
+        int n = getNumVertices();
+
+        // any multiplier coprime to n is a bijection, pick one from the seed
+        shuffleSize = n;
+        multiplier = Math.abs(random.nextLong() % n);
+        while (gcd(multiplier, n) != 1) {
+            multiplier++;
+        }
+
+        visitor.header(n, (int) getNumEdges());
+
+        switch (family) {
+            case "uniform":
+                for (long i = 0; i < numEdges; i++) {
+                    int u = 1 + random.nextInt(n);
+                    int v = 1 + random.nextInt(n - 1);
+                    if (v >= u) {
+                        v++; // no self loops
+                    }
+                    visitor.edge(shuffle(u), shuffle(v), weight(random));
+                }
+                break;
+
+            case "power-law":
+                // inverse of the weight CDF (x / n)^(1 - alpha)
+                double power = 1 / (1 - 1 / (exponent - 1));
+                for (long i = 0; i < numEdges; i++) {
+                    int u;
+                    int v;
+                    do {
+                        u = Math.min(n, 1 + (int) (n * Math.pow(random.nextDouble(), power)));
+                        v = Math.min(n, 1 + (int) (n * Math.pow(random.nextDouble(), power)));
+                    } while (u == v);
+                    visitor.edge(shuffle(u), shuffle(v), weight(random));
+                }
+                break;
+
+            case "bipartite":
+                int left = n / 2;
+                for (long i = 0; i < numEdges; i++) {
+                    int u = 1 + random.nextInt(left);
+                    int v = left + 1 + random.nextInt(n - left);
+                    visitor.edge(shuffle(u), shuffle(v), weight(random));
+                }
+                break;
+
+            case "planted":
+                // each step emits the next hidden pair with probability pairs left / edges left
+                long pairsLeft = n / 2;
+                long nextPair = 0;
+                for (long edgesLeft = numEdges; edgesLeft > 0; edgesLeft--) {
+                    if (random.nextDouble() * edgesLeft < pairsLeft) {
+                        visitor.edge(shuffle(2 * nextPair + 1), shuffle(2 * nextPair + 2), weight(random));
+                        nextPair++;
+                        pairsLeft--;
+                    } else {
+                        int u = 1 + random.nextInt(n);
+                        int v = 1 + random.nextInt(n - 1);
+                        if (v >= u) {
+                            v++;
+                        }
+                        visitor.edge(shuffle(u), shuffle(v), weight(random));
+                    }
+                }
+                break;
+
+            case "blossom":
+                int cycles = n / cycleLength;
+                for (int c = 0; c < cycles; c++) {
+                    int first = c * cycleLength + 1;
+                    for (int i = 0; i < cycleLength; i++) {
+                        int u = first + i;
+                        int v = first + (i + 1) % cycleLength;
+                        visitor.edge(shuffle(u), shuffle(v), weight(random));
+                    }
+                    if (c > 0) {
+                        // chain edge from the previous cycle, chord into a random earlier one
+                        visitor.edge(shuffle(first - 1), shuffle(first), weight(random));
+                        int earlier = random.nextInt(c) * cycleLength + 1 + random.nextInt(cycleLength);
+                        visitor.edge(shuffle(first + 1 + random.nextInt(cycleLength - 1)), shuffle(earlier),
+                                weight(random));
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Build the graph in memory
+     */
+    public Graph generate() {
+        EdgeListParser.BuilderFeed feed = new EdgeListParser.BuilderFeed();
+        generate(feed);
+        return feed.builder.build();
+    }
+
+    /**
+     * Stream the text edge list that {@link EdgeListParser} reads
+     */
+    public void writeText(OutputStream out) throws IOException {
+        TextSink sink = new TextSink(out);
+        try {
+            generate(sink);
+        } catch (TextSink.Failure e) {
+            throw (IOException) e.getCause();
+        }
+        sink.flush();
+    }
+
+    /**
+     * Write a version 2 binary graph file, see {@link OffHeapGraph#write}
+     *
+     * @return number of edges written
+     */
+    public long writeBinary(String output) throws IOException {
+        return OffHeapGraph.write(new OffHeapGraph.EdgeStream() {
+            @Override
+            public void replay(EdgeListParser.EdgeVisitor visitor) {
+                generate(visitor);
+            }
+        }, output);
+    }
+
+    /**
+     * Formats edges into a reused buffer, like {@link MatchingWriter}
+     */
+    static class TextSink implements EdgeListParser.EdgeVisitor {
+        final OutputStream out;
+        final byte[] buffer = new byte[MatchingWriter.BUFFER_SIZE];
+        int position;
+
+        /**
+         * Carries an IOException through the visitor, whose methods cannot throw it
+         */
+        static class Failure extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+
+            Failure(IOException cause) {
+                super(cause);
+            }
+        }
+
+        TextSink(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void header(int numVertices, int numEdges) {
+            line(numVertices, numEdges, 0, false);
+        }
+
+        @Override
+        public void edge(int u, int v, int weight) {
+            line(u, v, weight, true);
+        }
+
+        private void line(int a, int b, int c, boolean third) {
+            if (position + 3 * MatchingWriter.MAX_INT_BYTES > buffer.length) {
+                try {
+                    out.write(buffer, 0, position);
+                } catch (IOException e) {
+                    throw new Failure(e);
+                }
+                position = 0;
+            }
+            position = MatchingWriter.putInt(buffer, position, a);
+            buffer[position++] = ' ';
+            position = MatchingWriter.putInt(buffer, position, b);
+            if (third) {
+                buffer[position++] = ' ';
+                position = MatchingWriter.putInt(buffer, position, c);
+            }
+            buffer[position++] = '\n';
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: GraphGenerator family numVertices averageDegree [--seed=s] [--exponent=x]"
+                    + " [--cycle=k] [--max-weight=w] [--format=text|binary] [--output=file]");
+            System.exit(-1);
+        }
+
+        long seed = 1;
+        String format = "text";
+        String output = null;
+        double exponent = 2.5;
+        int cycleLength = 5;
+        int maxWeight = 100;
+        for (int i = 3; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--exponent=")) {
+                exponent = Double.parseDouble(arg.substring("--exponent=".length()));
+            } else if (arg.startsWith("--cycle=")) {
+                cycleLength = Integer.parseInt(arg.substring("--cycle=".length()));
+            } else if (arg.startsWith("--max-weight=")) {
+                maxWeight = Integer.parseInt(arg.substring("--max-weight=".length()));
+            } else if (arg.startsWith("--format=")) {
+                format = arg.substring("--format=".length());
+            } else if (arg.startsWith("--output=")) {
+                output = arg.substring("--output=".length());
+            } else {
+                System.err.println("Unknown option " + arg);
+                System.exit(-1);
+            }
+        }
+
+        GraphGenerator generator = new GraphGenerator(args[0], Integer.parseInt(args[1]),
+                Double.parseDouble(args[2]), seed);
+        generator.exponent = exponent;
+        generator.cycleLength = cycleLength;
+        generator.maxWeight = maxWeight;
+
+        if (format.equals("binary")) {
+            if (output == null) {
+                System.err.println("The binary format needs --output");
+                System.exit(-1);
+            }
+            generator.writeBinary(output);
+        } else if (format.equals("text")) {
+            OutputStream out = output != null ? new FileOutputStream(output) : System.out;
+            generator.writeText(out);
+            if (output != null) {
+                out.close();
+            }
+        } else {
+            System.err.println("Unknown format " + format);
+            System.exit(-1);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * Hopcroft-Karp for bipartite graphs, O(m sqrt(n)).
+ * <p>
+ * Every phase layers the graph by a BFS from the free nodes of side 1, then a DFS along the
+ * layers augments a maximal set of vertex-disjoint shortest paths. No blossom can exist, so
+ * none of the machinery of {@link EdmondsSolver} is needed.
+ */
+public class HopcroftKarpSolver implements MatchingSolver {
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    // side[v] is 1 or 2, computed by solve() when not given, may be longer than the graph
+    byte[] side;
+
+    Graph graph;
+    int[] mate;
+    int numVertices;
+
+    // BFS layer of the nodes of side 1
+    int[] dist;
+    // layer in which a free node of side 2 is reached, the length of the shortest paths
+    int distFree;
+
+    int[] queue;
+    // DFS state: path of side 1 nodes, the side 2 node taken from each, next edge of each node
+    int[] stack;
+    int[] via;
+    int[] nextEdge;
+
+    // counters, null when instrumentation is off
+    SolverStats stats;
+    // snapshots between phases, null for none
+    Checkpoint checkpoint;
+
+    public HopcroftKarpSolver() {
+    }
+
+    /**
+     * @param side 2-coloring of the graph that is going to be solved, see {@link Graph#twoColoring()}
+     */
+    public HopcroftKarpSolver(byte[] side) {
+        this.side = side;
+    }
+
+    @Override
+    public int solve(Graph graph, int[] mate) {
+        byte[] side = this.side;
+        if (side == null || side.length < graph.numVertices + 1) {
+            side = graph.twoColoring();
+            if (side == null) {
+                throw new IllegalArgumentException("Graph is not bipartite");
+            }
+        }
+
+        this.graph = graph;
+        this.mate = mate;
+        numVertices = graph.numVertices;
+
+        int size = numVertices + 1;
+        if (dist == null || dist.length < size) {
+            dist = new int[size];
+            queue = new int[size];
+            stack = new int[size];
+            via = new int[size];
+            nextEdge = new int[size];
+        }
+
+        int num = 0;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mate[v] != 0) {
+                num++;
+            }
+        }
+
+        long start = stats != null ? System.nanoTime() : 0;
+        while (buildLayers(side)) {
+            for (int u = 1; u <= numVertices; u++) {
+                nextEdge[u] = graph.offset[u];
+            }
+            int before = num;
+            for (int u = 1; u <= numVertices; u++) {
+                if (side[u] == 1 && mate[u] == 0 && augmentFrom(u)) {
+                    num += 2;
+                }
+            }
+
+            if (stats != null) {
+                stats.phases++;
+                stats.augmentations += (num - before) / 2;
+                // entries the DFS went past
+                for (int u = 1; u <= numVertices; u++) {
+                    stats.edgesScanned += nextEdge[u] - graph.offset[u];
+                }
+            }
+            if (checkpoint != null) {
+                checkpoint.phaseDone(graph, mate);
+            }
+        }
+        if (stats != null) {
+            stats.phases++; // the last layering finds nothing
+            stats.searchNanos += System.nanoTime() - start;
+        }
+
+        return num;
+    }
+
+    /**
+     * BFS from all free nodes of side 1, alternating non-matching and matching edges
+     *
+     * @return true if some free node of side 2 is reachable
+     */
+    private boolean buildLayers(byte[] side) {
+        int[] offset = graph.offset;
+        int[] target = graph.target;
+
+        int head = 0;
+        int tail = 0;
+        for (int u = 1; u <= numVertices; u++) {
+            if (side[u] == 1 && mate[u] == 0) {
+                dist[u] = 0;
+                queue[tail++] = u;
+            } else {
+                dist[u] = INFINITY;
+            }
+        }
+        distFree = INFINITY;
+
+        while (head < tail) {
+            int u = queue[head++];
+            if (dist[u] >= distFree) {
+                continue;
+            }
+            if (stats != null) {
+                stats.edgesScanned += offset[u + 1] - offset[u];
+            }
+
+            for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+                int w = mate[target[e]];
+                if (w == 0) {
+                    if (distFree == INFINITY) {
+                        distFree = dist[u] + 1;
+                    }
+                } else if (dist[w] == INFINITY) {
+                    dist[w] = dist[u] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        return distFree != INFINITY;
+    }
+
+    /**
+     * Iterative DFS along the layers from free node r. Nodes that lead nowhere are cut off
+     * by setting their layer to infinity, so every edge is tried once per phase.
+     *
+     * @return true if a path was found and flipped
+     */
+    private boolean augmentFrom(int r) {
+        int[] offset = graph.offset;
+        int[] target = graph.target;
+
+        int top = 0;
+        stack[top++] = r;
+
+        while (top > 0) {
+            int u = stack[top - 1];
+
+            if (nextEdge[u] == offset[u + 1]) {
+                dist[u] = INFINITY;
+                top--;
+                continue;
+            }
+
+            int v = target[nextEdge[u]++];
+            int w = mate[v];
+
+            if (w == 0) {
+                if (dist[u] + 1 != distFree) {
+                    continue;
+                }
+
+                // flip the path r ... u - v
+                via[top - 1] = v;
+                for (int i = top - 1; i >= 0; i--) {
+                    int x = stack[i];
+                    int y = via[i];
+                    mate[x] = y;
+                    mate[y] = x;
+                }
+                return true;
+            }
+
+            if (dist[w] == dist[u] + 1) {
+                via[top - 1] = v;
+                stack[top++] = w;
+            }
+        }
+
+        return false;
+    }
+}
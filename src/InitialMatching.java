@@ -0,0 +1,323 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * Heuristics that seed the matching before the augmentation phase. All of them are
+ * iterative, cover every component and run in O(n + m). The closer the seed is to
+ * maximum, the fewer augmenting paths the solver has to search for.
+ */
+public enum InitialMatching {
+    /**
+     * Leave the matching as it is
+     */
+    NONE("none") {
+        @Override
+        public int match(Graph graph, int[] mate) {
+            return 0;
+        }
+    },
+
+    /**
+     * Match every free node with its first free neighbor
+     */
+    GREEDY("greedy") {
+        @Override
+        public int match(Graph graph, int[] mate) {
+            int[] offset = graph.offset;
+            int[] target = graph.target;
+            int num = 0;
+
+            for (int u = 1; u <= graph.numVertices; u++) {
+                if (mate[u] != 0) {
+                    continue;
+                }
+                for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+                    int v = target[e];
+                    if (mate[v] == 0) {
+                        mate[u] = v;
+                        mate[v] = u;
+                        num += 2; // a pair of matching
+                        break;
+                    }
+                }
+            }
+
+            return num;
+        }
+    },
+
+    /**
+     * Karp-Sipser: while some node has a single free neighbor, match the two, which never
+     * loses optimality; otherwise match an arbitrary free node with a free neighbor
+     */
+    KARP_SIPSER("karp-sipser") {
+        @Override
+        public int match(Graph graph, int[] mate) {
+            int size = graph.numVertices + 1;
+            return karpSipser(graph, mate, new int[size], new int[size]);
+        }
+    },
+
+    /**
+     * Repeatedly match a free node of minimum remaining degree with its free neighbor of
+     * minimum remaining degree. Degree-1 nodes come first, so this includes the
+     * Karp-Sipser reduction.
+     */
+    MIN_DEGREE("min-degree") {
+        @Override
+        public int match(Graph graph, int[] mate) {
+            int n = graph.numVertices;
+            int[] offset = graph.offset;
+            int[] target = graph.target;
+            DegreeState state = new DegreeState(graph, mate);
+            int[] degree = state.degree;
+
+            // nodes bucketed by remaining degree in doubly linked lists, 0 ends a list
+            int maxDegree = 0;
+            for (int v = 1; v <= n; v++) {
+                maxDegree = Math.max(maxDegree, degree[v]);
+            }
+            int[] head = new int[maxDegree + 1];
+            int[] next = new int[n + 1];
+            int[] prev = new int[n + 1];
+            for (int v = 1; v <= n; v++) {
+                if (mate[v] == 0 && degree[v] > 0) {
+                    next[v] = head[degree[v]];
+                    prev[next[v]] = v;
+                    head[degree[v]] = v;
+                }
+            }
+            state.buckets = head;
+            state.next = next;
+            state.prev = prev;
+
+            int num = 0;
+            int minDegree = 1;
+            while (minDegree <= maxDegree) {
+                int u = head[minDegree];
+                if (u == 0) {
+                    minDegree++;
+                    continue;
+                }
+
+                int v = 0;
+                for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+                    int w = target[e];
+                    if (mate[w] == 0 && (v == 0 || degree[w] < degree[v])) {
+                        v = w;
+                    }
+                }
+
+                mate[u] = v;
+                mate[v] = u;
+                num += 2;
+
+                state.lowest = minDegree;
+                state.remove(u, null, 0);
+                state.remove(v, null, 0);
+                minDegree = Math.max(1, state.lowest);
+            }
+
+            return num;
+        }
+    },
+
+    /**
+     * Handshaking rounds on all cores, see {@link ApproximateMatching}, maximal like the
+     * others but O(m) per round
+     */
+    PARALLEL("parallel") {
+        @Override
+        public int match(Graph graph, int[] mate) {
+            int before = 0;
+            for (int v = 1; v <= graph.numVertices; v++) {
+                if (mate[v] != 0) {
+                    before++;
+                }
+            }
+            ApproximateMatching approximate = new ApproximateMatching(false,
+                    Runtime.getRuntime().availableProcessors());
+            try {
+                return approximate.match(graph, mate) - before;
+            } finally {
+                approximate.shutdown();
+            }
+        }
+    };
+
+    final String name;
+
+    InitialMatching(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Extend the matching in mate greedily
+     *
+     * @param graph graph
+     * @param mate  mate[v] is the node matched to v, 0 if v is free, updated in place
+     * @return number of nodes this stage matched
+     */
+    public abstract int match(Graph graph, int[] mate);
+
+    /**
+     * @param name none, greedy, karp-sipser, min-degree or parallel
+     * @return the heuristic, null if name is unknown
+     */
+    public static InitialMatching forName(String name) {
+        for (InitialMatching initial : values()) {
+            if (initial.name.equals(name)) {
+                return initial;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@link #KARP_SIPSER} on buffers of at least numVertices + 1 entries, e.g. pooled ones
+     */
+    static int karpSipser(Graph graph, int[] mate, int[] degree, int[] degreeOne) {
+        DegreeState state = new DegreeState(graph, mate, degree);
+        int numDegreeOne = 0;
+
+        for (int v = 1; v <= graph.numVertices; v++) {
+            if (state.degree[v] == 1) {
+                degreeOne[numDegreeOne++] = v;
+            }
+        }
+
+        int num = 0;
+        int next = 1;
+        while (true) {
+            int u;
+            if (numDegreeOne > 0) {
+                u = degreeOne[--numDegreeOne];
+                if (mate[u] != 0 || state.degree[u] != 1) {
+                    continue; // stale entry
+                }
+            } else {
+                while (next <= graph.numVertices && (mate[next] != 0 || state.degree[next] == 0)) {
+                    next++;
+                }
+                if (next > graph.numVertices) {
+                    break;
+                }
+                u = next;
+            }
+
+            int v = state.freeNeighbor(u);
+            mate[u] = v;
+            mate[v] = u;
+            num += 2;
+
+            numDegreeOne = state.remove(u, degreeOne, numDegreeOne);
+            numDegreeOne = state.remove(v, degreeOne, numDegreeOne);
+        }
+
+        return num;
+    }
+
+    /**
+     * Number of free neighbors of every free node, kept up to date as nodes get matched
+     */
+    static class DegreeState {
+        final Graph graph;
+        final int[] mate;
+        final int[] degree;
+
+        // optional degree buckets, see MIN_DEGREE
+        int[] buckets;
+        int[] next;
+        int[] prev;
+        // smallest positive degree a removal produced
+        int lowest;
+
+        DegreeState(Graph graph, int[] mate) {
+            this(graph, mate, new int[graph.numVertices + 1]);
+        }
+
+        /**
+         * @param degree buffer of at least numVertices + 1 entries, overwritten
+         */
+        DegreeState(Graph graph, int[] mate, int[] degree) {
+            this.graph = graph;
+            this.mate = mate;
+            this.degree = degree;
+
+            for (int u = 1; u <= graph.numVertices; u++) {
+                degree[u] = 0;
+                if (mate[u] != 0) {
+                    continue;
+                }
+                for (int e = graph.offset[u], end = graph.offset[u + 1]; e < end; e++) {
+                    if (mate[graph.target[e]] == 0) {
+                        degree[u]++;
+                    }
+                }
+            }
+        }
+
+        int freeNeighbor(int u) {
+            for (int e = graph.offset[u], end = graph.offset[u + 1]; e < end; e++) {
+                int v = graph.target[e];
+                if (mate[v] == 0) {
+                    return v;
+                }
+            }
+            throw new IllegalStateException("Node " + u + " has no free neighbor");
+        }
+
+        /**
+         * u was just matched, lower the degree of its free neighbors
+         *
+         * @param degreeOne collects neighbors whose degree drops to one, may be null
+         * @return new size of degreeOne
+         */
+        int remove(int u, int[] degreeOne, int numDegreeOne) {
+            unlink(u);
+
+            for (int e = graph.offset[u], end = graph.offset[u + 1]; e < end; e++) {
+                int w = graph.target[e];
+                if (mate[w] != 0) {
+                    continue;
+                }
+
+                unlink(w);
+                degree[w]--;
+                if (degree[w] > 0 && degree[w] < lowest) {
+                    lowest = degree[w];
+                }
+                if (buckets != null && degree[w] > 0) {
+                    next[w] = buckets[degree[w]];
+                    prev[next[w]] = w;
+                    prev[w] = 0;
+                    buckets[degree[w]] = w;
+                }
+                if (degreeOne != null && degree[w] == 1) {
+                    degreeOne[numDegreeOne++] = w;
+                }
+            }
+
+            return numDegreeOne;
+        }
+
+        private void unlink(int v) {
+            if (buckets == null || degree[v] == 0) {
+                return;
+            }
+            if (prev[v] != 0) {
+                next[prev[v]] = next[v];
+            } else if (buckets[degree[v]] == v) {
+                buckets[degree[v]] = next[v];
+            } else {
+                return; // not linked
+            }
+            if (next[v] != 0) {
+                prev[next[v]] = prev[v];
+            }
+            prev[v] = 0;
+            next[v] = 0;
+        }
+    }
+}
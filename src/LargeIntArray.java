@@ -0,0 +1,96 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Int array outside the Java heap, indexed by long: direct buffers, or a section of a file
+ * mapped in place. A buffer holds at most 2 GB, so the array is cut into chunks of
+ * 2^CHUNK_BITS entries. The garbage collector never scans or moves the contents, direct
+ * memory is limited by -XX:MaxDirectMemorySize, mapped memory only by the address space.
+ */
+public class LargeIntArray {
+    static final int CHUNK_BITS = 28;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    static final int MASK = CHUNK - 1;
+
+    final long length;
+    final IntBuffer[] chunks;
+
+    private LargeIntArray(long length, IntBuffer[] chunks) {
+        this.length = length;
+        this.chunks = chunks;
+    }
+
+    /**
+     * @return length zeros in direct memory
+     */
+    public static LargeIntArray allocate(long length) {
+        IntBuffer[] chunks = new IntBuffer[numChunks(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            int size = (int) Math.min(CHUNK, length - ((long) i << CHUNK_BITS));
+            chunks[i] = ByteBuffer.allocateDirect(4 * size).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        return new LargeIntArray(length, chunks);
+    }
+
+    /**
+     * Map length little endian ints of file from position on, writes go to the file in
+     * READ_WRITE mode
+     */
+    public static LargeIntArray map(FileChannel file, FileChannel.MapMode mode, long position, long length)
+            throws IOException {
+        IntBuffer[] chunks = new IntBuffer[numChunks(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            int size = (int) Math.min(CHUNK, length - ((long) i << CHUNK_BITS));
+            chunks[i] = file.map(mode, position, 4L * size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            position += 4L * size;
+        }
+        return new LargeIntArray(length, chunks);
+    }
+
+    static int numChunks(long length) {
+        return (int) ((length + MASK) >>> CHUNK_BITS);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int get(long i) {
+        return chunks[(int) (i >>> CHUNK_BITS)].get((int) i & MASK);
+    }
+
+    public void set(long i, int value) {
+        chunks[(int) (i >>> CHUNK_BITS)].put((int) i & MASK, value);
+    }
+
+    /**
+     * Copy this[i ... i + count - 1] to values[offset ...]
+     */
+    public void get(long i, int[] values, int offset, int count) {
+        while (count > 0) {
+            IntBuffer chunk = chunks[(int) (i >>> CHUNK_BITS)].duplicate();
+            chunk.position((int) i & MASK);
+            int length = Math.min(count, chunk.remaining());
+            chunk.get(values, offset, length);
+            i += length;
+            offset += length;
+            count -= length;
+        }
+    }
+
+    /**
+     * Set this[from ... to - 1] to value
+     */
+    public void fill(long from, long to, int value) {
+        for (long i = from; i < to; i++) {
+            set(i, value);
+        }
+    }
+}
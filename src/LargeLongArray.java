@@ -0,0 +1,69 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Long array outside the Java heap, like {@link LargeIntArray}, for edge offsets past 2^31
+ */
+public class LargeLongArray {
+    static final int CHUNK_BITS = 27;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    static final int MASK = CHUNK - 1;
+
+    final long length;
+    final LongBuffer[] chunks;
+
+    private LargeLongArray(long length, LongBuffer[] chunks) {
+        this.length = length;
+        this.chunks = chunks;
+    }
+
+    /**
+     * @return length zeros in direct memory
+     */
+    public static LargeLongArray allocate(long length) {
+        LongBuffer[] chunks = new LongBuffer[numChunks(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            int size = (int) Math.min(CHUNK, length - ((long) i << CHUNK_BITS));
+            chunks[i] = ByteBuffer.allocateDirect(8 * size).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        return new LargeLongArray(length, chunks);
+    }
+
+    /**
+     * Map length little endian longs of file from position on, writes go to the file in
+     * READ_WRITE mode
+     */
+    public static LargeLongArray map(FileChannel file, FileChannel.MapMode mode, long position, long length)
+            throws IOException {
+        LongBuffer[] chunks = new LongBuffer[numChunks(length)];
+        for (int i = 0; i < chunks.length; i++) {
+            int size = (int) Math.min(CHUNK, length - ((long) i << CHUNK_BITS));
+            chunks[i] = file.map(mode, position, 8L * size).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            position += 8L * size;
+        }
+        return new LargeLongArray(length, chunks);
+    }
+
+    static int numChunks(long length) {
+        return (int) ((length + MASK) >>> CHUNK_BITS);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long get(long i) {
+        return chunks[(int) (i >>> CHUNK_BITS)].get((int) i & MASK);
+    }
+
+    public void set(long i, long value) {
+        chunks[(int) (i >>> CHUNK_BITS)].put((int) i & MASK, value);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Read a matching written by {@link MatchingWriter} back into a mate array, for a warm start.
+ * The format is told by the magic of the binary form, text and pairs are read alike: every
+ * line "u v" matches u with v, "v -" and lines with a single int are skipped.
+ */
+public class MatchingReader {
+
+    /**
+     * @param numVertices size of the graph, pairs beyond it are dropped
+     * @return mate array of numVertices + 1 entries, not validated against any graph
+     */
+    public static int[] read(String path, int numVertices) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path), 1 << 16)) {
+            int[] mate = new int[numVertices + 1];
+
+            if (startsWithMagic(in)) {
+                readBinary(in, mate);
+            } else {
+                readText(in, mate);
+            }
+            return mate;
+        }
+    }
+
+    /**
+     * Peek at the first bytes, a file shorter than the magic is text
+     *
+     * @return true if in starts with the binary magic, which is then consumed, else in is
+     * left where it was
+     */
+    static boolean startsWithMagic(InputStream in) throws IOException {
+        in.mark(4);
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b < 0) {
+                in.reset();
+                return false;
+            }
+            magic |= b << 8 * i;
+        }
+        if (magic == MatchingWriter.MAGIC) {
+            return true;
+        }
+        in.reset();
+        return false;
+    }
+
+    static void readBinary(InputStream in, int[] mate) throws IOException {
+        int version = readBinaryInt(in);
+        if (version != MatchingWriter.VERSION) {
+            throw new IOException("Unsupported matching version " + version);
+        }
+        int numVertices = readBinaryInt(in);
+        for (int v = 1; v <= numVertices; v++) {
+            int m = readBinaryInt(in);
+            if (v < mate.length && m < mate.length) {
+                mate[v] = m;
+            }
+        }
+    }
+
+    static int readBinaryInt(InputStream in) throws IOException {
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        if ((b0 | b1 | b2 | b3) < 0) {
+            throw new IOException("Truncated matching file");
+        }
+        return b0 | b1 << 8 | b2 << 16 | b3 << 24;
+    }
+
+    static void readText(InputStream in, int[] mate) throws IOException {
+        int[] line = new int[2];
+        int c = in.read();
+
+        while (c != -1) {
+            int count = 0;
+            boolean number = false;
+            int value = 0;
+
+            // decode the ints of one line, anything that is not a digit separates them
+            while (c != -1 && c != '\n') {
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    number = true;
+                } else if (number) {
+                    if (count < 2) {
+                        line[count] = value;
+                    }
+                    count++;
+                    number = false;
+                    value = 0;
+                }
+                c = in.read();
+            }
+            if (number) {
+                if (count < 2) {
+                    line[count] = value;
+                }
+                count++;
+            }
+            c = in.read();
+
+            int u = line[0];
+            int v = line[1];
+            if (count == 2 && u > 0 && v > 0 && u < mate.length && v < mate.length) {
+                mate[u] = v;
+                mate[v] = u;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * Engine that turns a matching of a graph into a maximum matching
+ */
+public interface MatchingSolver {
+    /**
+     * Augment the given matching until it is maximum
+     *
+     * @param graph graph, vertices 1...n
+     * @param mate  mate[v] is the node matched to v, 0 if v is free. Any valid matching
+     *              (also the empty one) is accepted and it is updated in place
+     * @return number of matched nodes
+     */
+    int solve(Graph graph, int[] mate);
+}
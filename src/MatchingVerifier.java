@@ -0,0 +1,191 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * Proof that a mate array is a maximum matching, without trusting the solver that made it.
+ * <p>
+ * First the pairs must be symmetric and edges of the graph. Then a single phase of the
+ * {@link EdmondsSolver} search grows the alternating forest from all free nodes on a copy
+ * of the matching. If it finds an augmenting path the matching is not maximum, otherwise
+ * its labels are the Gallai-Edmonds decomposition: D the outer nodes, which some maximum
+ * matching leaves free, A the inner nodes, their neighbors outside D, and C the rest.
+ * <p>
+ * The search is not trusted either. For any node set A every matching leaves at least
+ * odd(G - A) - |A| nodes free, odd counting the components of G - A with an odd number of
+ * nodes (Tutte-Berge), so the matching is maximum if it leaves exactly that many free.
+ * That is counted by a BFS over G - A. A wrong decomposition can only make a maximum
+ * matching fail, never accept a smaller one. RT = O(m alpha(n)), the arrays are kept for
+ * the next call.
+ */
+public class MatchingVerifier {
+    // parts of the decomposition, the labels the search leaves
+    public static final byte C = EdmondsSolver.UNLABELED;
+    public static final byte D = EdmondsSolver.OUTER;
+    public static final byte A = EdmondsSolver.INNER;
+
+    final EdmondsSolver search = new EdmondsSolver();
+
+    // the search augments in place, so it runs on a copy
+    int[] copy;
+    // BFS over G - A
+    boolean[] visited;
+    int[] queue;
+
+    int numVertices;
+    int numMatched;
+    int numBarrier;
+    int numOddComponents;
+    // null after a successful verify
+    String failure;
+
+    /**
+     * @param mate mate[v] is the node matched to v, 0 if v is free, it is not changed
+     * @return true if mate is a matching of graph and it is maximum, see {@link #getFailure}
+     * otherwise
+     */
+    public boolean verify(Graph graph, int[] mate) {
+        numVertices = graph.numVertices;
+        numMatched = 0;
+        numBarrier = 0;
+        numOddComponents = 0;
+        failure = null;
+
+        int n = numVertices;
+        if (mate.length <= n) {
+            return fail("mate array has " + mate.length + " entries for " + n + " vertices");
+        }
+
+        for (int v = 1; v <= n; v++) {
+            int m = mate[v];
+            if (m == 0) {
+                continue;
+            }
+            if (m < 0 || m > n || m == v || mate[m] != v) {
+                return fail("vertex " + v + " has mate " + m + ", which is not matched back");
+            }
+            if (m > v && !hasEdge(graph, v, m)) {
+                return fail("matched pair " + v + " " + m + " is not an edge");
+            }
+            numMatched++;
+        }
+
+        if (copy == null || copy.length < n + 1) {
+            copy = new int[n + 1];
+            visited = new boolean[n + 1];
+            queue = new int[n];
+        }
+        System.arraycopy(mate, 0, copy, 0, n + 1);
+        copy[0] = 0;
+
+        search.init(graph, copy);
+        if (search.buildAlternatingTree() > 0) {
+            return fail("there is an augmenting path");
+        }
+
+        for (int v = 1; v <= n; v++) {
+            visited[v] = search.label(v) == A;
+            if (visited[v]) {
+                numBarrier++;
+            }
+        }
+        numOddComponents = countOddComponents(graph);
+
+        int numFree = n - numMatched;
+        int bound = numOddComponents - numBarrier;
+        if (numFree != bound) {
+            return fail(numFree + " free nodes, but the barrier of " + numBarrier + " nodes only proves "
+                    + bound + " must be");
+        }
+        return true;
+    }
+
+    /**
+     * Count the components with an odd number of nodes among the nodes not visited yet
+     */
+    private int countOddComponents(Graph graph) {
+        int[] offset = graph.offset;
+        int[] target = graph.target;
+        int odd = 0;
+
+        for (int s = 1; s <= numVertices; s++) {
+            if (visited[s]) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            visited[s] = true;
+            queue[tail++] = s;
+
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+                    int v = target[e];
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            if (tail % 2 == 1) {
+                odd++;
+            }
+        }
+
+        return odd;
+    }
+
+    private static boolean hasEdge(Graph graph, int u, int v) {
+        for (int e = graph.offset[u], end = graph.offset[u + 1]; e < end; e++) {
+            if (graph.target[e] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fail(String reason) {
+        failure = reason;
+        return false;
+    }
+
+    /**
+     * @return why the last verify failed, null if it succeeded
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Part of v in the decomposition of the last successful verify
+     *
+     * @return {@link #D}, {@link #A} or {@link #C}
+     */
+    public byte part(int v) {
+        return (byte) search.label(v);
+    }
+
+    /**
+     * @return number of matched nodes of the last verify
+     */
+    public int getNumMatched() {
+        return numMatched;
+    }
+
+    /**
+     * @return size of A, the Tutte-Berge barrier
+     */
+    public int getNumBarrier() {
+        return numBarrier;
+    }
+
+    /**
+     * @return number of odd components of G - A, each is a blossom of D left with one free node
+     * or matched into A
+     */
+    public int getNumOddComponents() {
+        return numOddComponents;
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Write a mate array through a reused byte buffer that is flushed in large blocks, ints are
+ * formatted by hand, so nothing is allocated per vertex.
+ */
+public class MatchingWriter {
+    static final int BUFFER_SIZE = 1 << 16;
+    // longest int plus separator
+    static final int MAX_INT_BYTES = 12;
+
+    // "MMMT", then version, numVertices and mate[1 ... numVertices], little endian ints
+    static final int MAGIC = 'M' | 'M' << 8 | 'M' << 16 | 'T' << 24;
+    static final int VERSION = 1;
+
+    public enum Format {
+        /**
+         * "v mate" for every vertex, "v -" if it is free
+         */
+        TEXT("text"),
+        /**
+         * "u v" once per matched pair, u < v
+         */
+        PAIRS("pairs"),
+        /**
+         * the mate array in binary, see {@link #MAGIC}
+         */
+        BINARY("binary");
+
+        final String name;
+
+        Format(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the format, null if name is unknown
+         */
+        public static Format forName(String name) {
+            for (Format format : values()) {
+                if (format.name.equals(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    final OutputStream out;
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    int position;
+
+    /**
+     * @param out receives whole blocks, it is flushed but not closed
+     */
+    public MatchingWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Write the matching of vertices 1 ... numVertices
+     *
+     * @param mate mate[v] is the node matched to v, 0 if v is free
+     */
+    public void write(int[] mate, int numVertices, Format format) throws IOException {
+        writeHeader(numVertices, format);
+        writeRange(mate, 0, 1, numVertices + 1, format);
+        flush();
+    }
+
+    /**
+     * Write an off-heap matching, copied to the heap one block at a time
+     */
+    public void write(LargeIntArray mate, int numVertices, Format format) throws IOException {
+        writeHeader(numVertices, format);
+        int[] block = new int[BUFFER_SIZE];
+        for (int v = 1; v <= numVertices; v += block.length) {
+            int length = Math.min(block.length, numVertices + 1 - v);
+            mate.get(v, block, 0, length);
+            writeRange(block, v, v, v + length, format);
+        }
+        flush();
+    }
+
+    private void writeHeader(int numVertices, Format format) throws IOException {
+        if (format == Format.BINARY) {
+            putBinary(MAGIC);
+            putBinary(VERSION);
+            putBinary(numVertices);
+        }
+    }
+
+    /**
+     * Vertices from ... to - 1, the mate of v is mate[v - first]
+     */
+    private void writeRange(int[] mate, int first, int from, int to, Format format) throws IOException {
+        switch (format) {
+            case TEXT:
+                for (int v = from; v < to; v++) {
+                    int m = mate[v - first];
+                    ensure(2 * MAX_INT_BYTES);
+                    position = putInt(buffer, position, v);
+                    buffer[position++] = ' ';
+                    if (m != 0) {
+                        position = putInt(buffer, position, m);
+                    } else {
+                        buffer[position++] = '-';
+                    }
+                    buffer[position++] = '\n';
+                }
+                break;
+            case PAIRS:
+                for (int v = from; v < to; v++) {
+                    int m = mate[v - first];
+                    if (m > v) {
+                        ensure(2 * MAX_INT_BYTES);
+                        position = putInt(buffer, position, v);
+                        buffer[position++] = ' ';
+                        position = putInt(buffer, position, m);
+                        buffer[position++] = '\n';
+                    }
+                }
+                break;
+            case BINARY:
+                for (int v = from; v < to; v++) {
+                    putBinary(mate[v - first]);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Write a line with a single int, e.g. a count after the matching
+     */
+    public void writeLine(int value) throws IOException {
+        ensure(MAX_INT_BYTES);
+        position = putInt(buffer, position, value);
+        buffer[position++] = '\n';
+        flush();
+    }
+
+    /**
+     * Drop the bytes not flushed yet, so one writer can be reused after a failed write
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Decimal digits of value, written backwards into place
+     *
+     * @return position after the digits
+     */
+    static int putInt(byte[] buffer, int position, int value) {
+        if (value == Integer.MIN_VALUE) {
+            // its magnitude does not fit in an int
+            for (byte b : "-2147483648".getBytes()) {
+                buffer[position++] = b;
+            }
+            return position;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (int rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private void putBinary(int value) throws IOException {
+        ensure(4);
+        buffer[position++] = (byte) value;
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 24);
+    }
+}
@@ -4,702 +4,547 @@
 
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
 
 
 public class MaximumMatching {
-    // 0 is unused
-    ArrayList<Vertex> vertices;
+    final Graph graph;
 
     int numVertices;
 
-    HashMap<Integer, List<Pair<Integer>>> edgesShrunk;
-    HashMap<Integer, List<Pair<Integer>>> edgesShrunkOutside;
-    HashSet<Integer> nodesHaveConnectionWithCycle;
+    MatchingSolver solver;
+    InitialMatching initialMatching = InitialMatching.KARP_SIPSER;
 
-    // flag
-    int run = 0;
+    // nodes matched by initialMatching or the warm start, the solver matched the rest
+    int numInitialMatched;
+    // pairs of the warm start that did not fit the graph
+    int numDroppedPairs;
 
-    public MaximumMatching(ArrayList<Vertex> vertices) {
-        this.vertices = vertices;
-        numVertices = vertices.size() - 1;
-    }
-
-    public void addEdge(int u, int v, int weight) {
-        vertices.get(u).addAdj(v, weight);
-        vertices.get(v).addAdj(u, weight);
-    }
+    // result of the last procedure(), mate[v] is 0 if v is free
+    int[] mate;
 
-    public int procedure() {
-        for (Vertex v : vertices) {
-            v.augmentingRoot = 0;
-            v.augmentingChildren.clear();
-            v.augmentingParent = 0;
-            v.mate = 0;
-            v.isOuter = true;
-            v.inMatchingSet = false;
-            v.seen = false;
-            v.visited = false;
-        }
+    // counters and timers, null when instrumentation is off
+    SolverStats stats;
 
+    // created by the first verify()
+    MatchingVerifier verifier;
 
-        int free = findFreeNode();
-        int numMatching = findMaximalMatchingFromFreeNodeDFS(free);
-        if (numMatching == numVertices) {
-            return numVertices;
-        }
+    // snapshots between the phases of the solver, null for none
+    Checkpoint checkpoint;
 
-        buildAlternatingTree();
-
-        return 0;
+    public MaximumMatching(Graph graph) {
+        this.graph = graph;
+        numVertices = graph.numVertices;
+        solver = defaultSolver(graph);
     }
 
     /**
-     * Find a free node from 1...n
+     * Seed the matching with the initial heuristic, then let the solver augment it
      *
-     * @return index of free node
+     * @return number of matched nodes
      */
-    private int findFreeNode() {
-        for (Vertex v : vertices) {
-            if (v.index != 0 && v.toBeProcessed && v.isFreeNode()) {
-                return v.index;
-            }
+    public int procedure() {
+        mate = new int[numVertices + 1];
+
+        long start = stats != null ? System.nanoTime() : 0;
+        numInitialMatched = initialMatching.match(graph, mate);
+        if (stats != null) {
+            stats.initialNanos += System.nanoTime() - start;
         }
-        return 0;
+        return augment();
     }
 
     /**
-     * Find and mark a maximal matching using BFS
+     * Warm start: keep the pairs of a previous matching that are still edges of the graph
+     * and only run the augmentation from there, the initial heuristic is skipped
      *
-     * @param freeNode start from this node
+     * @param previous mate array of an earlier solve, entries past numVertices are ignored
      * @return number of matched nodes
      */
-    private int findMaximalMatchingFromFreeNode(int freeNode) {
-        for (Vertex v : vertices) {
-            v.visited = false;
-            v.inMatchingSet = false;
-        }
-
-        int num = 0;
-
-        LinkedList<Integer> queue = new LinkedList<>();
-        Vertex start = vertices.get(freeNode);
-
-        start.visited = true;
-        start.inMatchingSet = false;
-        queue.add(start.index);
-
-        while (!queue.isEmpty()) {
-            int u_index = queue.remove();
-            Vertex u = vertices.get(u_index);
-
-            for (int v_index : u.adj) {
-                Vertex v = vertices.get(v_index);
-
-                if (!u.inMatchingSet && !v.inMatchingSet) {
-                    u.inMatchingSet = true;
-                    u.mate = v_index;
-                    v.inMatchingSet = true;
-                    v.mate = u_index;
-                    num += 2; // a pair of matching
-                }
-
-                if (!v.visited) {
-                    v.visited = true;
-                    queue.add(v_index);
-                }
+    public int procedure(int[] previous) {
+        mate = Arrays.copyOf(previous, numVertices + 1);
+        numDroppedPairs = dropInvalidPairs(graph, mate);
+
+        numInitialMatched = 0;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mate[v] != 0) {
+                numInitialMatched++;
             }
         }
-
-        return num;
-    }
-
-    private int findMaximalMatchingFromFreeNodeDFS(int freeNode) {
-        for (Vertex v : vertices) {
-            v.visited = false;
-            v.inMatchingSet = false;
-        }
-
-        Vertex u = vertices.get(freeNode);
-        return findMaximalMatchingFromFreeNodeDFS(u);
+        return augment();
     }
 
-    private int findMaximalMatchingFromFreeNodeDFS(Vertex u) {
-        int num = 0;
-
-        u.visited = true;
-
-        for (int v_index : u.adj) {
-            Vertex v = vertices.get(v_index);
+    /**
+     * Free every node whose pair is out of range, one sided or not an edge, RT = O(n + m)
+     *
+     * @return number of pairs dropped
+     */
+    static int dropInvalidPairs(Graph graph, int[] mate) {
+        int n = graph.numVertices;
+        int dropped = 0;
+
+        mate[0] = 0;
+        for (int v = 1; v <= n; v++) {
+            int m = mate[v];
+            if (m == 0) {
+                continue;
+            }
 
-            if (!u.inMatchingSet && !v.inMatchingSet) {
-                u.inMatchingSet = true;
-                u.mate = v.index;
-                v.inMatchingSet = true;
-                v.mate = u.index;
-                num += 2; // a pair of matching
+            boolean valid = m > 0 && m <= n && m != v && mate[m] == v;
+            if (valid && m > v) {
+                // each pair is looked up once, from its smaller end
+                valid = false;
+                for (int e = graph.offset[v], end = graph.offset[v + 1]; e < end; e++) {
+                    if (graph.target[e] == m) {
+                        valid = true;
+                        break;
+                    }
+                }
+            }
+            if (valid) {
+                continue;
             }
 
-            if (!v.visited) {
-                v.visited = true;
-                findMaximalMatchingFromFreeNodeDFS(v);
+            // a one sided entry counts as a dropped pair of its own
+            dropped++;
+            mate[v] = 0;
+            if (m > 0 && m <= n && mate[m] == v) {
+                mate[m] = 0;
             }
         }
 
-        return num;
+        return dropped;
     }
 
-    /**
-     * Build tree only using vertices whose run flag equals to solution run flag
-     */
-    private void buildAlternatingTree() {
-        Queue<Integer> Q = new LinkedList<>();
-
-        for (Vertex v : vertices) {
-            if (v.index != 0 && v.toBeProcessed && !v.inMatchingSet) {
-                Q.add(v.index);
-                v.augmentingRoot = v.index; // self root
-                v.seen = true;
-            }
+    private int augment() {
+        if (stats != null) {
+            SolverStats.attach(solver, stats);
         }
-
-        while (!Q.isEmpty()) {
-            int u_index = Q.remove();
-            Vertex u = vertices.get(u_index);
-
-            for (int v_index : u.adj) {
-                Vertex v = vertices.get(v_index);
-//                if (u.augmentingParent == v_index) {
-//                    continue; // TODO add
-//                }
-
-                if (u.mate == v_index) {
-                    //Q.add(v_index);
-                    continue;
-                }
-
-                if (!v.isInMatchingSet()) {
-                    v.seen = true;
-                    v.augmentingRoot = u.augmentingRoot;
-                    v.augmentingParent = u.index;
-                    u.augmentingChildren.add(v.index);
-                    int u_root_index = u.augmentingRoot;
-                    List<Integer> path = new ArrayList<>();
-                    Vertex u_root = vertices.get(u_root_index);
-                    Vertex current = v;
-                    while (current != u_root) {
-                        path.add(current.index);
-                        current = vertices.get(current.augmentingParent);
-                    }
-                    path.add(u_root_index);
-
-                    Collections.reverse(path);
-                    // TODO matching from leaf?
-                    augmentPath(path);
-                    //Q.add(v.index);
-
-                } else if (v.seen && v.isOuter() && v.augmentingRoot != u.augmentingRoot) {
-                    // merge u's tree to u
-                    case1FoundAnAugmentingPath(u, v);
-
-                } else if (v.isInner() && v.seen) {
-                    // case 2
-                    continue;
-                } else if (v.isInMatchingSet() && !v.seen) {
-                    // case 3
-                    v.seen = true;
-                    v.isOuter = false;
-                    v.inMatchingSet = true;
-                    v.augmentingParent = u.index;
-                    v.augmentingRoot = u.augmentingRoot;
-                    u.augmentingChildren.add(v.index);
-                    int x_index = v.mate;
-                    Vertex x = vertices.get(x_index);
-                    x.seen = true;
-                    x.isOuter = true;
-                    x.inMatchingSet = true;
-                    x.augmentingParent = v.index;
-                    x.augmentingRoot = v.augmentingRoot;
-                    v.augmentingChildren.add(x.index);
-                    //Q.add(v.index);
-                    Q.add(x.index); // TODO add
-                } else if (v.isOuter() && v.augmentingRoot == u.augmentingRoot) {
-                    // case 4
-                    int LCA_index = lowestCommonAncestor(u.index, v.index);
-                    List<Integer> cycle = formCycle(LCA_index, u.index, v.index);
-                    int x_index = shrinkCycle(cycle);
-                    MaximumMatching subProblem = new MaximumMatching(vertices);
-                    subProblem.run = this.run + 1;
-                    subProblem.procedure();
-                    recoverCycle(cycle, x_index);
-                    // TODO sub-problem substitute this problem
-                    return;
-                } else {
-                    System.out.println("Logical incomplete");
-                }
-            }
+        if (checkpoint != null) {
+            Checkpoint.attach(solver, checkpoint);
         }
+        int numMatching = numInitialMatched;
+        if (numMatching < numVertices) {
+            numMatching = solver.solve(graph, mate);
+        }
+
+        return numMatching;
     }
 
     /**
-     * Find an augmenting path from u to its root and v to its root
+     * The parallel approximate matching alone, without the exact solver, see
+     * {@link ApproximateMatching}. Its mate array can warm start {@link #procedure(int[])}.
      *
-     * @param u in one augmenting tree
-     * @param v int another augmenting tree
-     * @return the number of extra matching
+     * @param weighted the heaviest first matching instead of the largest maximal one
+     * @param threads  number of worker threads
+     * @return number of matched nodes
      */
-    private int case1FoundAnAugmentingPath(Vertex u, Vertex v) {
-        // case 1
-        // set root of all nodes in v's tree to root of u
-        int v_old_root_index = v.augmentingRoot;
-        Vertex v_old_root = vertices.get(v_old_root_index);
-        setAugmentingTreeRoot(vertices.get(v.augmentingRoot), u.augmentingRoot);
-
-        // reverse path from v to its root in augmenting path
-
-        Vertex prev = u;
-        Vertex current = v;
-        //Vertex next;
-        Vertex oldParent;
-
-        while (current != v_old_root) {
-            prev.augmentingChildren.add(current.index);
-            current.augmentingChildren.remove(Integer.valueOf(prev.index));
-            oldParent = vertices.get(current.augmentingParent);
-            current.augmentingParent = prev.index;
-            prev = current;
-            current = oldParent;
-        }
-
-        prev.augmentingChildren.add(current.index);
-        current.augmentingChildren.remove(Integer.valueOf(prev.index));
-        current.augmentingParent = prev.index;
+    public int approximate(boolean weighted, int threads) {
+        mate = new int[numVertices + 1];
 
-        // form a path from u's root to v's previous root, using backtrace
-        ArrayList<Integer> path = new ArrayList<>();
-        int u_root_index = u.augmentingRoot;
-        Vertex u_root = vertices.get(u_root_index);
-        current = v_old_root;
-
-        while (current != u_root) {
-            path.add(current.index);
-            current = vertices.get(current.augmentingParent);
+        ApproximateMatching approximate = new ApproximateMatching(weighted, threads);
+        long start = stats != null ? System.nanoTime() : 0;
+        try {
+            numInitialMatched = approximate.match(graph, mate);
+        } finally {
+            approximate.shutdown();
+        }
+        if (stats != null) {
+            stats.initialNanos += System.nanoTime() - start;
         }
-        path.add(u_root_index);
-
-        Collections.reverse(path);
-
-        augmentPath(path);
 
-        return 0;
+        return numInitialMatched;
     }
 
     /**
-     * @param path must be in subsequent order
+     * @param v 1 ... numVertices
+     * @return view of v in the result of the last procedure(), free before it
      */
-    private void augmentPath(List<Integer> path) {
-        assert path.size() >= 2 : "Augmenting path has at least 2 nodes";
-
-        int begin;
-        int end;
-
-        // Because two end of the path may be matched to other nodes, so skip these ends
-        Vertex first = vertices.get(path.get(0));
-        if (first.isInMatchingSet() && first.mate == path.get(1)) {
-            // matched in path
-            begin = 0;
-        } else if (!first.isInMatchingSet()) {
-            // free node
-            begin = 0;
-        } else {
-            // matched to node outside the path
-            begin = 1;
-        }
-
-        // end is inclusive
-        Vertex last = vertices.get(path.get(path.size() - 1));
-        if (last.isInMatchingSet() && last.mate == path.get(path.size() - 2)) {
-            end = path.size() - 1;
-        } else if (!last.isInMatchingSet()) {
-            end = path.size() - 1;
-        } else {
-            end = path.size() - 2;
-        }
-
-        for (int i = begin; i < end; i += 2) {
-            Vertex u = vertices.get(path.get(i));
-            Vertex v = vertices.get(path.get(i + 1));
-
-            u.inMatchingSet = true;
-            u.isOuter = false;
-            u.mate = v.index;
-            v.inMatchingSet = true;
-            v.isOuter = true;
-            v.mate = u.index;
+    public Vertex vertex(int v) {
+        if (v < 1 || v > numVertices) {
+            throw new IndexOutOfBoundsException("Vertex " + v + " out of range 1..." + numVertices);
         }
+        return new Vertex(v, mate);
     }
 
     /**
-     * Form a cycle with u and v to their LCA, and (u,v)
+     * Check the result of the last procedure() with {@link MatchingVerifier}, RT = O(m alpha(n))
      *
-     * @param LCA_index lowest common ancestor of u and v
-     * @param u_index   u
-     * @param v_index   v
-     * @return cycle, follow the order u -> LCA -> v -> u
+     * @return null if it is a maximum cardinality matching of the graph, the reason otherwise
      */
-    private List<Integer> formCycle(int LCA_index, int u_index, int v_index) {
-        List<Integer> cycle = new ArrayList<>();
-
-        Vertex u = vertices.get(u_index);
-        Vertex v = vertices.get(v_index);
-
-        Vertex p = u;
-        // u to LCA
-        while (p.index != LCA_index) {
-            cycle.add(p.index);
-            p = vertices.get(p.augmentingParent);
+    public String verify() {
+        if (verifier == null) {
+            verifier = new MatchingVerifier();
         }
+        int[] result = mate != null ? mate : new int[numVertices + 1];
 
-        // add LCA
-        cycle.add(LCA_index);
-
-        List<Integer> reverse = new LinkedList<>();
-        // v to LCA
-        p = v;
-        while (p.index != LCA_index) {
-            reverse.add(p.index);
-            p = vertices.get(p.augmentingParent);
+        long start = stats != null ? System.nanoTime() : 0;
+        boolean maximum = verifier.verify(graph, result);
+        if (stats != null) {
+            stats.verifyNanos += System.nanoTime() - start;
         }
-        ListIterator<Integer> itor = reverse.listIterator(reverse.size());
-        while (itor.hasPrevious()) {
-            cycle.add(itor.previous());
-        }
-
-        assert cycle.size() >= 3 : "Cycle must larger than 3";
-        assert (cycle.size() & 1) != 0 : "Cycle must be odd"; // odd cycle
+        return maximum ? null : verifier.getFailure();
+    }
 
-        return cycle;
+    public void printMatching() {
+        try {
+            writeMatching(System.out, MatchingWriter.Format.TEXT);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
-     * Find LCA of u and v in the same augmenting tree
-     *
-     * @param u_index u
-     * @param v_index v
-     * @return LCA, 0 if u and v are not in the same augmenting tree
+     * Write the result of the last procedure(), or an empty matching before it
      */
-    private int lowestCommonAncestor(int u_index, int v_index) {
-        Vertex u = vertices.get(u_index);
-        Vertex v = vertices.get(v_index);
-
-        if (u.augmentingRoot != v.augmentingRoot || u.augmentingRoot == 0) {
-            return 0;
-        }
-
-        Vertex root = vertices.get(u.augmentingRoot);
-        return lowestCommonAncestor(root, u, v).index;
+    public void writeMatching(OutputStream out, MatchingWriter.Format format) throws IOException {
+        int[] result = mate != null ? mate : new int[numVertices + 1];
+        new MatchingWriter(out).write(result, numVertices, format);
     }
 
     /**
-     * Recursively solve the sub-problem, RT = O(n)
-     *
-     * @param root of sub-tree
-     * @param u    u
-     * @param v    v
-     * @return the node found in the sub-tree, u, v, LCA or null
+     * Hopcroft-Karp if the graph passes the linear 2-coloring check, Edmonds otherwise
      */
-    private Vertex lowestCommonAncestor(Vertex root, Vertex u, Vertex v) {
-        if (root == u) {
-            return u;
-        } else if (root == v) {
-            return v;
+    static MatchingSolver defaultSolver(Graph graph) {
+        byte[] side = graph.twoColoring();
+        if (side != null) {
+            return new HopcroftKarpSolver(side);
         }
-
-        Vertex firstFound = null;
-
-        for (int k_index : root.augmentingChildren) {
-            Vertex k = vertices.get(k_index);
-
-            Vertex found = lowestCommonAncestor(k, u, v);
-
-            if (found != null) {
-                if (found != u && found != v) {
-                    // a node that is nor u neither v
-                    // it's the LCA, return it immediately
-                    return found;
-                }
-
-                if (firstFound == null) {
-                    // find first node, u or v
-                    firstFound = found;
-                } else {
-                    // find second node
-                    // so this root should be LCA
-                    return root;
-                }
-            }
-        }
-
-        return firstFound;
+        return new EdmondsSolver();
     }
 
-    class Pair<T> {
-        T from, to;
-
-        public Pair(T from, T to) {
-            this.from = from;
-            this.to = to;
+    /**
+     * @param name edmonds, multipath, hopcroftkarp, weighted (maximum weight) or
+     *             weighted-cardinality (maximum weight among maximum cardinality matchings)
+     * @return the engine, null if name is unknown
+     */
+    static MatchingSolver solverFor(String name) {
+        switch (name) {
+            case "edmonds":
+                return new EdmondsSolver();
+            case "multipath":
+                return new MultiPathSolver();
+            case "hopcroftkarp":
+                return new HopcroftKarpSolver();
+            case "weighted":
+                return new WeightedMatchingSolver(false);
+            case "weighted-cardinality":
+                return new WeightedMatchingSolver(true);
+            default:
+                return null;
         }
     }
 
     /**
-     * Shrink cycle C into a single node
-     *
-     * @param cycle cycle to be shrunk
-     * @return index of new node
+     * Usage: MaximumMatching [--solver=name] [--init=name] [--parallel[=threads]] [--verbose]
+     * [--format=text|pairs|binary] [--output=file] [--warm-start=matching] [--stats[=file]]
+     * [--verify] [--approximate[=weighted]] [--off-heap] [--checkpoint=file [--checkpoint-interval=seconds]
+     * [--resume]] [input], reads stdin without input and writes stdout without output, see
+     * {@link MatchingWriter.Format}. See {@link #solverFor} and {@link InitialMatching#forName}
+     * for the names. Without --solver bipartite graphs go to Hopcroft-Karp, others to Edmonds.
+     * --parallel solves the connected components concurrently, by default on all cores, and
+     * parses a large input file in as many chunks at once. An input file in the format of
+     * {@link BinaryGraphFile} is loaded as it is. --warm-start starts from a matching written
+     * by an earlier run, in any output format, instead of the initial heuristic. --stats
+     * collects {@link SolverStats}, publishes them over JMX and dumps them as JSON at exit, to
+     * stderr without file. --verify proves the result is a maximum cardinality matching with
+     * {@link MatchingVerifier} and exits with an error before writing it if not, so it does
+     * not go with --solver=weighted. The weighted solvers start from an empty matching unless
+     * --init, --warm-start or --resume give one, and drop the pairs of it their duals cannot
+     * hold, see {@link WeightedMatchingSolver}. --approximate only computes the parallel approximate
+     * matching, on --parallel threads or all cores, weighted by the edge weights if asked;
+     * --init=parallel instead hands the same matching to the exact solver, best with
+     * --solver=multipath. --off-heap maps a binary input as an {@link OffHeapGraph} and
+     * solves it with {@link OffHeapSolver}, the only way to handle version 2 files; it ignores
+     * the options of the heap solvers, give -XX:MaxDirectMemorySize for the solver state.
+     * --checkpoint snapshots the matching to file between the phases of the Edmonds,
+     * multipath, Hopcroft-Karp and weighted solvers, every 60 seconds by default, see
+     * {@link Checkpoint}, not with --parallel or --off-heap, which have no such phases;
+     * with --resume a run that finds the file warm starts from it, so a killed job is
+     * restarted with the same command line.
      */
-    private int shrinkCycle(List<Integer> cycle) {
-        edgesShrunk = new HashMap<>();
-        edgesShrunkOutside = new HashMap<>();
-        nodesHaveConnectionWithCycle = new HashSet<>();
-
-        // for each vertex in cycle
-        for (Integer u_index : cycle) {
-            Vertex u = vertices.get(u_index);
-
-            Iterator<Integer> adjItor = u.adj.iterator();
-            Iterator<Integer> weightItor = u.weight.iterator();
-
-            // for all adjacent edge of u
-            while (adjItor.hasNext()) {
-                int v_index = adjItor.next();
-                int weight = weightItor.next();
-
-                Vertex v = vertices.get(v_index);
-
-                // skip vertex that in cycle
-                if (cycle.contains(v_index)) {
-                    continue;
+    public static void main(String[] args) {
+        String input = null;
+        String solverName = null;
+        MatchingSolver solver = null;
+        InitialMatching initialMatching = null;
+        int threads = 0;
+        boolean verbose = false;
+        MatchingWriter.Format format = MatchingWriter.Format.TEXT;
+        String output = null;
+        String warmStart = null;
+        boolean collectStats = false;
+        String statsFile = null;
+        boolean verify = false;
+        boolean approximate = false;
+        boolean weighted = false;
+        boolean offHeap = false;
+        String checkpointFile = null;
+        double checkpointInterval = 60;
+        boolean resume = false;
+
+        for (String arg : args) {
+            if (arg.startsWith("--solver=")) {
+                solverName = arg.substring("--solver=".length());
+                solver = solverFor(solverName);
+                if (solver == null) {
+                    System.err.println("Unknown solver " + arg);
+                    System.exit(-1);
                 }
-
-                // record nodes that have connection to cycle
-                nodesHaveConnectionWithCycle.add(v_index);
-
-                // first record the almost shrunk edge
-                List<Pair<Integer>> edgesShrunkFromU = edgesShrunk.get(u_index);
-                List<Pair<Integer>> edgesShrunkFromUOutside = edgesShrunk.get(v_index);
-                if (edgesShrunkFromU == null) {
-                    edgesShrunkFromU = new ArrayList<>();
-                    edgesShrunk.put(u_index, edgesShrunkFromU);
+            } else if (arg.equals("--parallel")) {
+                threads = Runtime.getRuntime().availableProcessors();
+            } else if (arg.startsWith("--parallel=")) {
+                threads = Integer.parseInt(arg.substring("--parallel=".length()));
+            } else if (arg.startsWith("--init=")) {
+                initialMatching = InitialMatching.forName(arg.substring("--init=".length()));
+                if (initialMatching == null) {
+                    System.err.println("Unknown initial matching " + arg);
+                    System.exit(-1);
                 }
-                if (edgesShrunkFromUOutside == null) {
-                    edgesShrunkFromUOutside = new ArrayList<>();
-                    edgesShrunkOutside.put(v_index, edgesShrunkFromUOutside);
+            } else if (arg.startsWith("--format=")) {
+                format = MatchingWriter.Format.forName(arg.substring("--format=".length()));
+                if (format == null) {
+                    System.err.println("Unknown output format " + arg);
+                    System.exit(-1);
                 }
-                Pair<Integer> pair = new Pair<>(u_index, v_index);
-                edgesShrunkFromU.add(pair);
-                edgesShrunkFromUOutside.add(pair);
-
-                // remove edge end point at u
-                adjItor.remove();
-                weightItor.remove();
-                // remove edge end point at v
-                v.removeAdj(u_index);
+            } else if (arg.startsWith("--output=")) {
+                output = arg.substring("--output=".length());
+            } else if (arg.startsWith("--warm-start=")) {
+                warmStart = arg.substring("--warm-start=".length());
+            } else if (arg.equals("--stats")) {
+                collectStats = true;
+            } else if (arg.startsWith("--stats=")) {
+                collectStats = true;
+                statsFile = arg.substring("--stats=".length());
+            } else if (arg.equals("--approximate")) {
+                approximate = true;
+            } else if (arg.equals("--approximate=weighted")) {
+                approximate = true;
+                weighted = true;
+            } else if (arg.startsWith("--checkpoint=")) {
+                checkpointFile = arg.substring("--checkpoint=".length());
+            } else if (arg.startsWith("--checkpoint-interval=")) {
+                checkpointInterval = Double.parseDouble(arg.substring("--checkpoint-interval=".length()));
+            } else if (arg.equals("--resume")) {
+                resume = true;
+            } else if (arg.equals("--off-heap")) {
+                offHeap = true;
+            } else if (arg.equals("--verify")) {
+                verify = true;
+            } else if (arg.equals("--verbose")) {
+                verbose = true;
+            } else {
+                input = arg;
             }
         }
 
-        // insert new vertex x
-        Vertex x = new Vertex(vertices.size());
-        int x_index = vertices.size();
-        vertices.add(x);
-        x.toBeProcessed = true;
-
-        for (Integer k_index : nodesHaveConnectionWithCycle) {
-            x.addAdj(k_index, 0);
-            Vertex k = vertices.get(k_index);
-            k.addAdj(x.index, 0);
+        if (resume && checkpointFile == null) {
+            System.err.println("--resume needs --checkpoint=file");
+            System.exit(-1);
         }
-
-        // the direction of path is the reverse of cycle list
-
-        // prevent node int cycle from be processed in next recursion
-        for (Integer y_index : cycle) {
-            Vertex y = vertices.get(y_index);
-            y.toBeProcessed = false;
+        if (checkpointFile != null && (threads > 0 || offHeap)) {
+            System.err.println("--checkpoint does not go with --parallel or --off-heap");
+            System.exit(-1);
         }
 
-        return x_index;
-    }
-
-    /**
-     * Include the cycle into MST
-     *
-     * @param cycle   the zero cycle
-     * @param x_index to which cycle shrunk
-     * @return number of matching in this cycle
-     */
-    private int recoverCycle(List<Integer> cycle, int x_index) {
-        if (cycle == null || cycle.size() == 0) {
-            return 0;
-        }
-
-        // include the cycle into graph
-        //System.out.println(cycle.size() + " " + x_index);
-        for (Integer y_index : cycle) {
-            Vertex y = vertices.get(y_index);
-            y.toBeProcessed = true;
+        SolverStats stats = null;
+        if (collectStats) {
+            stats = new SolverStats();
+            dumpStatsAtExit(stats, statsFile);
         }
 
-        List<Integer> nodeInCycleMatchedToNodeOutsideCycle = new ArrayList<>();
-
-        Vertex x = vertices.get(x_index);
-        if (x.isInMatchingSet()) {
-            int x_mate_index = x.mate;
-            List<Pair<Integer>> edgesShrunkFromUOutside = edgesShrunkOutside.get(x_mate_index);
-            assert edgesShrunkFromUOutside != null : "Logical error: no records";
-            // for edge connect node matched to x with node in cycle
-            for (Pair<Integer> pair : edgesShrunkFromUOutside) {
-                nodeInCycleMatchedToNodeOutsideCycle.add(pair.from);
+        ComponentSolver components = null;
+        try {
+            if (offHeap) {
+                if (input == null || !BinaryGraphFile.isBinary(input)) {
+                    System.err.println("--off-heap needs a binary graph file, see BinaryGraphFile");
+                    System.exit(-1);
+                }
+                solveOffHeap(input, format, output, verbose, stats);
+                return;
             }
-            int temp = nodeInCycleMatchedToNodeOutsideCycle.get(0);
-            Vertex x_mate = vertices.get(x_mate_index);
-            Vertex nodeInCycle = vertices.get(temp);
-            x_mate.inMatchingSet = true;
-            nodeInCycle.inMatchingSet = true;
-            x_mate.mate = nodeInCycle.index;
-            nodeInCycle.mate = x_mate.index;
-        }
-
-        int numMatching = (cycle.size() - 1) / 2;
 
-        int start_index;
-        if (nodeInCycleMatchedToNodeOutsideCycle.size() > 0) {
-            // find a node in cycle that matched to outside
-            int start_index_cycle = cycle.indexOf(nodeInCycleMatchedToNodeOutsideCycle.get(0));
-            start_index = start_index_cycle + 1;
-        } else {
-            // no node in cycle matched to outside
-            start_index = 0;
-        }
-
-        if (numMatching > 0) {
-            int matched = 0;
-            for (int i = start_index; i < i + cycle.size(); i += 2) {
-                // circular buffer
+            long start = System.nanoTime();
+            Graph graph;
+            if (input != null && BinaryGraphFile.isBinary(input)) {
+                graph = BinaryGraphFile.read(input);
+            } else if (input != null) {
+                graph = EdgeListParser.parse(input, threads);
+            } else {
+                graph = EdgeListParser.parse(Channels.newChannel(System.in));
+            }
 
-                int j = i % cycle.size();
+            if (stats != null) {
+                stats.loadNanos = System.nanoTime() - start;
+            }
 
-                int inner_index = cycle.get(j);
-                Vertex inner = vertices.get(inner_index);
-                int outet_index = cycle.get((j + 1) % cycle.size());
-                Vertex outer = vertices.get(outet_index);
+            MaximumMatching solution = new MaximumMatching(graph);
+            solution.stats = stats;
+            if (threads > 0) {
+                components = new ComponentSolver(solverName, threads);
+                solution.solver = components;
+            } else if (solver != null) {
+                solution.solver = solver;
+            }
+            if (initialMatching != null) {
+                solution.initialMatching = initialMatching;
+            } else if (solver instanceof WeightedMatchingSolver) {
+                // a maximal matching picked for cardinality mostly is dropped by the weighted
+                // engine, so it starts from an empty one unless asked, also per component
+                solution.initialMatching = InitialMatching.NONE;
+            }
+            Checkpoint checkpoint = null;
+            if (checkpointFile != null) {
+                checkpoint = new Checkpoint(checkpointFile, checkpointInterval);
+                solution.checkpoint = checkpoint;
+            }
 
-                inner.isOuter = false;
-                outer.isOuter = true;
-                inner.inMatchingSet = true;
-                outer.inMatchingSet = true;
-                inner.mate = outet_index;
-                outer.mate = inner_index;
+            int numMatching;
+            if (approximate) {
+                numMatching = solution.approximate(weighted,
+                        threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+                if (verbose) {
+                    System.err.println("approximate matching matched " + numMatching + " nodes"
+                            + (weighted ? ", weight " + WeightedMatchingSolver.weight(graph, solution.mate) : ""));
+                }
+            } else if (resume && checkpoint.exists()) {
+                int[] snapshot = checkpoint.read(graph);
+                int phasesDone = checkpoint.getPhases();
+                numMatching = solution.procedure(snapshot);
+                if (verbose) {
+                    System.err.println("resumed after " + phasesDone + " phases with "
+                            + solution.numInitialMatched + " nodes, augmentation matched "
+                            + (numMatching - solution.numInitialMatched) + " more");
+                }
+            } else if (warmStart != null) {
+                numMatching = solution.procedure(MatchingReader.read(warmStart, graph.numVertices));
+                if (verbose) {
+                    System.err.println("warm start kept " + solution.numInitialMatched + " nodes, dropped "
+                            + solution.numDroppedPairs + " pairs, augmentation matched "
+                            + (numMatching - solution.numInitialMatched) + " more");
+                }
+            } else {
+                numMatching = solution.procedure();
+                if (verbose) {
+                    System.err.println("initial matching " + solution.initialMatching.name + " matched "
+                            + solution.numInitialMatched + " nodes, augmentation matched "
+                            + (numMatching - solution.numInitialMatched) + " more");
+                }
+            }
 
-                matched++;
+            if (checkpoint != null && verbose) {
+                System.err.println(checkpoint.getNumWritten() + " checkpoints written");
+            }
 
-                if (matched == numMatching) {
-                    break;
+            if (verify) {
+                String failure = solution.verify();
+                if (failure != null) {
+                    System.err.println("Matching is not maximum: " + failure);
+                    System.exit(-1);
+                }
+                if (verbose) {
+                    MatchingVerifier verifier = solution.verifier;
+                    System.err.println("verified by a barrier of " + verifier.getNumBarrier() + " nodes and "
+                            + verifier.getNumOddComponents() + " odd components");
                 }
             }
-        }
-
-        // recover removed adjacent nodes
-        for (Map.Entry<Integer, List<Pair<Integer>>> pair : edgesShrunk.entrySet()) {
-            int node_in_cycle_index = pair.getKey();
-            List<Pair<Integer>> edges = pair.getValue();
 
-            for (Pair<Integer> edge : edges) {
-                int to_index = edge.to;
-                addEdge(node_in_cycle_index, to_index, 1);
+            start = System.nanoTime();
+            OutputStream out = output != null ? new FileOutputStream(output) : System.out;
+            MatchingWriter writer = new MatchingWriter(out);
+            writer.write(solution.mate, solution.numVertices, format);
+            if (format == MatchingWriter.Format.TEXT) {
+                writer.writeLine(solution.numVertices + 1);
+            }
+            if (output != null) {
+                out.close();
+            }
+            if (stats != null) {
+                stats.outputNanos = System.nanoTime() - start;
+            }
+        } catch (NoSuchFileException e) {
+            System.err.println("No such file " + e.getFile());
+            System.exit(-1);
+        } catch (IOException e) {
+            // unreadable input, warm start or checkpoint, or failed output
+            System.err.println(e.getMessage() != null ? e.getMessage() : e.toString());
+            System.exit(-1);
+        } finally {
+            if (components != null) {
+                components.close();
             }
         }
-
-        x.toBeProcessed = false;
-
-        return numMatching;
     }
 
     /**
-     * Set roots of all nodes in tree rooted at T to index root
-     *
-     * @param T    root of tree
-     * @param root new root index
+     * The --off-heap path of main: map, solve and write without the graph or the matching
+     * ever being in the heap
      */
-    private void setAugmentingTreeRoot(Vertex T, int root) {
-        T.augmentingRoot = root;
-
-        if (T.augmentingChildren.size() == 0) {
-            return;
+    static void solveOffHeap(String input, MatchingWriter.Format format, String output, boolean verbose,
+                             SolverStats stats) throws IOException {
+        long start = System.nanoTime();
+        OffHeapGraph graph = OffHeapGraph.map(input);
+        if (stats != null) {
+            stats.loadNanos = System.nanoTime() - start;
         }
 
-        for (int v_index : T.augmentingChildren) {
-            Vertex v = vertices.get(v_index);
-            setAugmentingTreeRoot(v, root);
+        start = System.nanoTime();
+        OffHeapSolver solver = new OffHeapSolver();
+        LargeIntArray mate = OffHeapSolver.newMate(graph);
+        int numMatching = solver.solve(graph, mate);
+        if (stats != null) {
+            stats.searchNanos += System.nanoTime() - start;
+            stats.phases += solver.getNumPhases();
         }
-    }
-
-    public void printMatching() {
-        for (int i = 1; i <= numVertices; i++) {
-            Vertex v = vertices.get(i);
-
-            if (v.inMatchingSet) {
-                System.out.println(v.index + " " + v.mate);
-            } else {
-                System.out.println(v.index + " -");
-            }
+        if (verbose) {
+            System.err.println("greedy matched " + solver.getNumGreedyMatched() + " nodes, " + solver.getNumPhases()
+                    + " off-heap phases matched " + (numMatching - solver.getNumGreedyMatched()) + " more");
         }
-    }
 
-    public static void main(String[] args) {
-        BufferedReader reader = null;
-        if (args.length > 0) {
-            try {
-                reader = new BufferedReader(new FileReader(args[0]));
-            } catch (FileNotFoundException e) {
-                System.exit(-1);
-            }
-        } else {
-            reader = new BufferedReader(new InputStreamReader(System.in));
+        start = System.nanoTime();
+        OutputStream out = output != null ? new FileOutputStream(output) : System.out;
+        MatchingWriter writer = new MatchingWriter(out);
+        writer.write(mate, graph.numVertices, format);
+        if (format == MatchingWriter.Format.TEXT) {
+            writer.writeLine(graph.numVertices + 1);
+        }
+        if (output != null) {
+            out.close();
+        }
+        if (stats != null) {
+            stats.outputNanos = System.nanoTime() - start;
         }
+    }
 
+    /**
+     * Register stats over JMX and write them as JSON when the JVM exits, also on an interrupt
+     *
+     * @param file JSON file, null for stderr
+     */
+    static void dumpStatsAtExit(final SolverStats stats, final String file) {
         try {
-            String metaLine = reader.readLine();
-            String[] metas = metaLine.split("[\\s\\t]+");
-            int numNodes = Integer.parseInt(metas[0]);
-            int numEdges = Integer.parseInt(metas[1]);
-
-            ArrayList<Vertex> nodeSet = new ArrayList<>(numNodes + 1);
-            nodeSet.add(new Vertex(0)); // 0 unused
-            for (int i = 1; i <= numNodes; i++) {
-                nodeSet.add(new Vertex(i));
-            }
-
-            MaximumMatching solution = new MaximumMatching(nodeSet);
-
-            String line;
-            while ((line = reader.readLine()) != null && !line.equals("")) {
-                String[] params = line.split("[\\s\\t]+");
-                int u_index = Integer.parseInt(params[0]);
-                int v_index = Integer.parseInt(params[1]);
-                int u_v_weight = Integer.parseInt(params[2]);
-
-                solution.addEdge(u_index, v_index, u_v_weight);
-            }
-
-            solution.procedure();
-            solution.printMatching();
-            System.out.println(solution.vertices.size());
-
-
-        } catch (IOException e) {
-            e.printStackTrace();
+            stats.register();
+        } catch (javax.management.JMException e) {
+            System.err.println("Solver stats are not available over JMX: " + e);
         }
 
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                String json = stats.snapshot().toJson();
+                if (file == null) {
+                    System.err.println(json);
+                    return;
+                }
+                try (Writer writer = new FileWriter(file)) {
+                    writer.write(json);
+                    writer.write('\n');
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,800 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.Arrays;
+
+/**
+ * Micali-Vazirani: every phase augments a maximal set of vertex-disjoint shortest augmenting
+ * paths, so there are O(sqrt(n)) phases of O(m alpha(n)) each, O(m sqrt(n) alpha(n)) in all.
+ * <p>
+ * A phase is a BFS by levels from all free nodes at once. The even and the odd level of a
+ * node are the lengths of its shortest even and odd alternating paths from a free node; the
+ * smaller one is its minlevel, found by the BFS, edges that give a minlevel are props. Any
+ * other edge between two nodes of the search is a bridge, its tenacity is the length of the
+ * shortest alternating walk through it from a free node back to one. At level i, after the
+ * BFS step, every bridge of tenacity 2i + 1 is searched by a double DFS (DDFS) from both
+ * ends, down the props: the two searches either reach two different free nodes, which is a
+ * shortest augmenting path, or meet at a bottleneck every path down has to pass. The nodes
+ * met on the way then form a petal (a blossom) with the bottleneck as its bud; their missing
+ * level is the tenacity minus their minlevel, and later searches jump over the petal to its
+ * bud. The phase stops after the first level that gave a path.
+ * <p>
+ * A path found by a DDFS runs through petals, it is expanded by walking each of them from
+ * the entry node to its bud, around the bridge for nodes that are odd in it. Nodes of a
+ * flipped path are erased, and so is every node left without unerased props below it, so
+ * later paths of the phase are disjoint from it. Nothing is recursive, the arrays are kept
+ * for the next solve.
+ */
+public class MultiPathSolver implements MatchingSolver {
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    // DDFS colors, in the low bit of mark
+    static final int GREEN = 0;
+    static final int RED = 1;
+
+    Graph graph;
+    int[] mate;
+    int numVertices;
+
+    int[] evenLevel;
+    int[] oddLevel;
+    // props into a node from unerased nodes, a node that runs out is erased
+    int[] numProps;
+    boolean[] erased;
+
+    // petal a node belongs to, its bud, 0 if none; budLink is the same forest path compressed
+    int[] petal;
+    int[] bud;
+    int[] budLink;
+    // DDFS color of a petal node
+    byte[] side;
+
+    // nodes by the level they are scanned at, minlevel and even maxlevel, as linked lists
+    int[] levelHead;
+    int[] levelNext;
+    int[] levelNode;
+    int numLevelEntries;
+
+    // bridges by the level they are searched at, (tenacity - 1) / 2
+    int[] bridgeHead;
+    int[] bridgeNext;
+    int[] bridgeFrom;
+    int[] bridgeTo;
+    int numBridges;
+    // highest level with a node or a bridge in its list
+    int lastLevel;
+
+    // petals by number: bridge ends, green and red start nodes of the DDFS
+    int[] petalFrom;
+    int[] petalTo;
+    int[] petalGreen;
+    int[] petalRed;
+    int numPetals;
+
+    // DDFS: stamp * 2 + color of the nodes it colored, its tree, the next edge to try
+    int[] mark;
+    int stamp;
+    int[] upGreen;
+    int[] upRed;
+    int[] viaGreen;
+    int[] viaRed;
+    int[] nextEdge;
+    // nodes on the path of the green search hold the current stamp
+    int[] greenPath;
+    int[] colored;
+    int numColored;
+
+    // path expansion: chains of nodes down a DDFS tree or a petal and the edges between
+    // them, segments of the path being built and a stack of those still to expand
+    int[] chain;
+    int[] chainVia;
+    int chainLength;
+    int[] findMark;
+    int findStamp;
+    int[] findNextEdge;
+    int[] findStack;
+    int[] segments = new int[48];
+    int numSegments;
+    int[] tasks = new int[48];
+    int numTasks;
+    int[] path;
+    int pathLength;
+
+    // counters, null when instrumentation is off
+    SolverStats stats;
+    // snapshots between phases, null for none
+    Checkpoint checkpoint;
+
+    @Override
+    public int solve(Graph graph, int[] mate) {
+        init(graph, mate);
+
+        long start = stats != null ? System.nanoTime() : 0;
+        while (true) {
+            int found = phase();
+            if (stats != null) {
+                stats.phases++;
+                stats.augmentations += found;
+            }
+            if (found == 0) {
+                break;
+            }
+            if (checkpoint != null) {
+                checkpoint.phaseDone(graph, mate);
+            }
+        }
+        if (stats != null) {
+            stats.searchNanos += System.nanoTime() - start;
+        }
+
+        int num = 0;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mate[v] != 0) {
+                num++;
+            }
+        }
+        return num;
+    }
+
+    void init(Graph graph, int[] mate) {
+        this.graph = graph;
+        this.mate = mate;
+        numVertices = graph.numVertices;
+
+        int size = numVertices + 1;
+        if (evenLevel == null || evenLevel.length < size) {
+            evenLevel = new int[size];
+            oddLevel = new int[size];
+            numProps = new int[size];
+            erased = new boolean[size];
+            petal = new int[size];
+            bud = new int[size];
+            budLink = new int[size];
+            side = new byte[size];
+            levelHead = new int[2 * size + 1];
+            levelNext = new int[2 * size];
+            levelNode = new int[2 * size];
+            bridgeHead = new int[2 * size + 1];
+            petalFrom = new int[size];
+            petalTo = new int[size];
+            petalGreen = new int[size];
+            petalRed = new int[size];
+            mark = new int[size];
+            upGreen = new int[size];
+            upRed = new int[size];
+            viaGreen = new int[size];
+            viaRed = new int[size];
+            nextEdge = new int[size];
+            greenPath = new int[size];
+            colored = new int[size];
+            chain = new int[size];
+            chainVia = new int[size];
+            findMark = new int[size];
+            findNextEdge = new int[size];
+            findStack = new int[size];
+            path = new int[size];
+        }
+        // each edge is a bridge at most once, matched ones included
+        int numEdges = graph.target.length / 2 + size;
+        if (bridgeNext == null || bridgeNext.length < numEdges) {
+            bridgeNext = new int[numEdges];
+            bridgeFrom = new int[numEdges];
+            bridgeTo = new int[numEdges];
+        }
+    }
+
+    /**
+     * One phase: level by level until the levels of some bridge give augmenting paths
+     *
+     * @return number of paths flipped
+     */
+    int phase() {
+        int n = numVertices;
+        int size = n + 1;
+        Arrays.fill(evenLevel, 0, size, INFINITY);
+        Arrays.fill(oddLevel, 0, size, INFINITY);
+        Arrays.fill(numProps, 0, size, 0);
+        Arrays.fill(erased, 0, size, false);
+        Arrays.fill(petal, 0, size, 0);
+        Arrays.fill(bud, 0, size, 0);
+        Arrays.fill(mark, 0, size, 0);
+        Arrays.fill(greenPath, 0, size, 0);
+        Arrays.fill(findMark, 0, size, 0);
+        Arrays.fill(levelHead, 0, 2 * size + 1, -1);
+        Arrays.fill(bridgeHead, 0, 2 * size + 1, -1);
+        for (int v = 0; v <= n; v++) {
+            budLink[v] = v;
+        }
+        numLevelEntries = 0;
+        numBridges = 0;
+        numPetals = 1;
+        stamp = 0;
+        findStamp = 0;
+        lastLevel = 0;
+
+        for (int v = 1; v <= n; v++) {
+            if (mate[v] == 0) {
+                evenLevel[v] = 0;
+                addToLevel(0, v);
+                addBridges(v);
+            }
+        }
+
+        int augmentations = 0;
+        for (int i = 0; i <= lastLevel && augmentations == 0; i++) {
+            for (int k = levelHead[i]; k >= 0; k = levelNext[k]) {
+                int v = levelNode[k];
+                if (i % 2 == 0) {
+                    if (evenLevel[v] == i) {
+                        scanEven(v, i);
+                    }
+                } else if (oddLevel[v] == i) {
+                    scanOdd(v, i);
+                }
+            }
+
+            for (int k = bridgeHead[i]; k >= 0; k = bridgeNext[k]) {
+                int s = bridgeFrom[k];
+                int t = bridgeTo[k];
+                if (!erased[s] && !erased[t] && doubleSearch(s, t, 2 * i + 1)) {
+                    augmentations++;
+                }
+            }
+        }
+        return augmentations;
+    }
+
+    void addToLevel(int level, int v) {
+        levelNode[numLevelEntries] = v;
+        levelNext[numLevelEntries] = levelHead[level];
+        levelHead[level] = numLevelEntries++;
+        lastLevel = Math.max(lastLevel, level);
+    }
+
+    void addBridge(int level, int s, int t) {
+        bridgeFrom[numBridges] = s;
+        bridgeTo[numBridges] = t;
+        bridgeNext[numBridges] = bridgeHead[level];
+        bridgeHead[level] = numBridges++;
+        lastLevel = Math.max(lastLevel, level);
+    }
+
+    int minLevel(int v) {
+        return Math.min(evenLevel[v], oddLevel[v]);
+    }
+
+    /**
+     * Node v reached its even level: every unmatched edge to a node that has one is a
+     * bridge, but for the props into v
+     */
+    void addBridges(int v) {
+        int[] target = graph.target;
+        int even = evenLevel[v];
+        // props into v come from nodes at this even level
+        int propLevel = oddLevel[v] < even ? oddLevel[v] - 1 : -1;
+        for (int e = graph.offset[v], end = graph.offset[v + 1]; e < end; e++) {
+            int u = target[e];
+            int level = evenLevel[u];
+            if (level != INFINITY && u != mate[v] && level != propLevel && !erased[u]) {
+                addBridge((level + even) / 2, v, u);
+            }
+        }
+    }
+
+    /**
+     * BFS step of a node at even level i over its unmatched edges
+     */
+    void scanEven(int v, int i) {
+        int[] target = graph.target;
+        int begin = graph.offset[v];
+        int end = graph.offset[v + 1];
+        if (stats != null) {
+            stats.edgesScanned += end - begin;
+        }
+
+        for (int e = begin; e < end; e++) {
+            int u = target[e];
+            if (u == mate[v] || evenLevel[u] != INFINITY) {
+                // the bridges are listed when u gets its even level
+                continue;
+            }
+            if (oddLevel[u] == INFINITY) {
+                oddLevel[u] = i + 1;
+                addToLevel(i + 1, u);
+            }
+            if (oddLevel[u] == i + 1) {
+                numProps[u]++;
+            }
+        }
+    }
+
+    /**
+     * BFS step of a node at odd level i over its matched edge
+     */
+    void scanOdd(int v, int i) {
+        int u = mate[v];
+        if (oddLevel[u] == i) {
+            if (v < u) {
+                addBridge(i, v, u);
+            }
+        } else if (evenLevel[u] == INFINITY && oddLevel[u] == INFINITY) {
+            evenLevel[u] = i + 1;
+            numProps[u] = 1;
+            addToLevel(i + 1, u);
+            addBridges(u);
+        }
+    }
+
+    /**
+     * Next unerased node below v over a prop, 0 if there is none left
+     *
+     * @param next next edge of v to try, moved on
+     */
+    int nextProp(int v, int[] next) {
+        int e = next[v];
+        int end = graph.offset[v + 1];
+        if (e >= end) {
+            return 0;
+        }
+        if (evenLevel[v] < oddLevel[v]) {
+            // even nodes hang below their mate, free ones have nothing below
+            next[v] = end;
+            int m = mate[v];
+            return m != 0 && !erased[m] ? m : 0;
+        }
+
+        int[] target = graph.target;
+        int level = oddLevel[v] - 1;
+        int m = mate[v];
+        while (e < end) {
+            int u = target[e++];
+            if (evenLevel[u] == level && u != m && !erased[u]) {
+                next[v] = e;
+                return u;
+            }
+        }
+        next[v] = end;
+        return 0;
+    }
+
+    /**
+     * Outermost bud of the petals containing v, v if it is in none
+     */
+    int budStar(int v) {
+        int r = v;
+        while (budLink[r] != r) {
+            r = budLink[r];
+        }
+        while (budLink[v] != r) {
+            int up = budLink[v];
+            budLink[v] = r;
+            v = up;
+        }
+        return r;
+    }
+
+    boolean colored(int v) {
+        return mark[v] >> 1 == stamp;
+    }
+
+    int color(int v) {
+        return mark[v] & 1;
+    }
+
+    void paint(int v, int color) {
+        if (!colored(v)) {
+            colored[numColored++] = v;
+            nextEdge[v] = graph.offset[v];
+        }
+        mark[v] = stamp << 1 | color;
+    }
+
+    /**
+     * DDFS of bridge (s, t): a green DFS from the outermost bud of s and a red one from that
+     * of t, the one at the higher level moves. When they meet, red backs off to find another
+     * way down, if it cannot, it takes the node back and green has to find another way. If
+     * green cannot either, the node is the bottleneck.
+     *
+     * @param tenacity 2 level + 1 of the bridge
+     * @return true if an augmenting path was flipped
+     */
+    boolean doubleSearch(int s, int t, int tenacity) {
+        int green = budStar(s);
+        int red = budStar(t);
+        if (green == red || erased[green] || erased[red]) {
+            return false;
+        }
+
+        stamp++;
+        numColored = 0;
+        paint(green, GREEN);
+        paint(red, RED);
+        upGreen[green] = 0;
+        upRed[red] = 0;
+        greenPath[green] = stamp;
+        int greenRoot = green;
+        int redRoot = red;
+        int barrier = red;
+        // the node both met last
+        int bottleneck = 0;
+
+        while (true) {
+            int levelGreen = minLevel(green);
+            int levelRed = minLevel(red);
+            if (levelGreen == 0 && levelRed == 0) {
+                augment(s, t, green, red);
+                return true;
+            }
+
+            if (levelGreen >= levelRed) {
+                int u = nextProp(green, nextEdge);
+                if (u == 0) {
+                    if (green == greenRoot) {
+                        break;
+                    }
+                    greenPath[green] = 0;
+                    green = upGreen[green];
+                    continue;
+                }
+                int w = budStar(u);
+                if (erased[w]) {
+                    continue;
+                }
+                if (!colored(w)) {
+                    paint(w, GREEN);
+                    upGreen[w] = green;
+                    viaGreen[w] = u;
+                    greenPath[w] = stamp;
+                    green = w;
+                } else if (w == red) {
+                    bottleneck = w;
+                    if (red != barrier) {
+                        // green takes it, red backs off
+                        paint(w, GREEN);
+                        upGreen[w] = green;
+                        viaGreen[w] = u;
+                        greenPath[w] = stamp;
+                        green = w;
+                        red = upRed[w];
+                    }
+                }
+            } else {
+                int u = nextProp(red, nextEdge);
+                if (u == 0) {
+                    if (red != barrier) {
+                        red = upRed[red];
+                        continue;
+                    }
+                    if (bottleneck == 0 || color(bottleneck) == RED) {
+                        // red has no way down but through green
+                        break;
+                    }
+                    // red takes the bottleneck back, green backs off
+                    paint(bottleneck, RED);
+                    red = bottleneck;
+                    barrier = bottleneck;
+                    if (greenPath[bottleneck] == stamp) {
+                        while (green != bottleneck) {
+                            greenPath[green] = 0;
+                            green = upGreen[green];
+                        }
+                        greenPath[green] = 0;
+                        green = upGreen[green];
+                        if (green == 0) {
+                            break;
+                        }
+                    }
+                    continue;
+                }
+                int w = budStar(u);
+                if (erased[w]) {
+                    continue;
+                }
+                if (!colored(w)) {
+                    paint(w, RED);
+                    upRed[w] = red;
+                    viaRed[w] = u;
+                    red = w;
+                } else if (w == green) {
+                    // green keeps it, but red knows its way there
+                    bottleneck = w;
+                    upRed[w] = red;
+                    viaRed[w] = u;
+                }
+            }
+        }
+
+        if (bottleneck != 0) {
+            formPetal(s, t, greenRoot, redRoot, bottleneck, tenacity);
+        }
+        return false;
+    }
+
+    /**
+     * Every node the DDFS colored above the bottleneck becomes a petal with the bottleneck as
+     * bud, and gets its missing level
+     */
+    void formPetal(int s, int t, int greenRoot, int redRoot, int b, int tenacity) {
+        int p = numPetals++;
+        petalFrom[p] = s;
+        petalTo[p] = t;
+        petalGreen[p] = greenRoot;
+        petalRed[p] = redRoot;
+
+        int members = 0;
+        for (int i = 0; i < numColored; i++) {
+            int v = colored[i];
+            if (v == b || minLevel(v) <= minLevel(b)) {
+                // the bud, and what the searches met below it
+                continue;
+            }
+            members++;
+            petal[v] = p;
+            side[v] = (byte) color(v);
+            bud[v] = b;
+            budLink[v] = b;
+            if (evenLevel[v] == INFINITY) {
+                evenLevel[v] = tenacity - oddLevel[v];
+                addToLevel(evenLevel[v], v);
+                addBridges(v);
+            } else if (oddLevel[v] == INFINITY) {
+                oddLevel[v] = tenacity - evenLevel[v];
+            }
+        }
+
+        if (stats != null) {
+            stats.blossoms++;
+            stats.blossomNodes += members + 1;
+        }
+    }
+
+    /**
+     * Flip the path through bridge (s, t) down to free nodes green and red, along the trees
+     * of the DDFS and through the petals on the way, then erase it
+     */
+    void augment(int s, int t, int green, int red) {
+        // s ... green reversed, then t ... red
+        numSegments = 0;
+        treeChain(green, upGreen, viaGreen);
+        appendChain(s, true);
+        reverseSegments(0, numSegments);
+        treeChain(red, upRed, viaRed);
+        appendChain(t, true);
+
+        numTasks = 0;
+        pushSegments(false);
+        pathLength = 0;
+        while (numTasks > 0) {
+            int b = tasks[--numTasks];
+            int v = tasks[--numTasks];
+            int kind = tasks[--numTasks];
+            if (kind == NODE) {
+                path[pathLength++] = v;
+            } else {
+                open(v, b, kind == UP);
+            }
+        }
+
+        for (int i = 0; i < pathLength; i += 2) {
+            int x = path[i];
+            int y = path[i + 1];
+            mate[x] = y;
+            mate[y] = x;
+        }
+        for (int i = 0; i < pathLength; i++) {
+            erase(path[i]);
+        }
+    }
+
+    // segment kinds: a node, the path from a node down to one of its buds without the bud,
+    // and the same path upwards
+    static final int NODE = 0;
+    static final int DOWN = 1;
+    static final int UP = 2;
+
+    void addSegment(int kind, int v, int b) {
+        if (kind != NODE && v == b) {
+            return;
+        }
+        if (numSegments + 3 > segments.length) {
+            segments = Arrays.copyOf(segments, 2 * segments.length);
+        }
+        segments[numSegments++] = kind;
+        segments[numSegments++] = v;
+        segments[numSegments++] = b;
+    }
+
+    /**
+     * Reverse the segments from ... to - 1, the triples between the offsets, as a path
+     */
+    void reverseSegments(int from, int to) {
+        for (int i = from, j = to - 3; i < j; i += 3, j -= 3) {
+            for (int k = 0; k < 3; k++) {
+                int swap = segments[i + k];
+                segments[i + k] = segments[j + k];
+                segments[j + k] = swap;
+            }
+        }
+        for (int i = from; i < to; i += 3) {
+            if (segments[i] != NODE) {
+                segments[i] = segments[i] == DOWN ? UP : DOWN;
+            }
+        }
+    }
+
+    /**
+     * Move the segments to the task stack so that the first is popped first, or the last
+     * one reversed if up
+     */
+    void pushSegments(boolean up) {
+        if (up) {
+            reverseSegments(0, numSegments);
+        }
+        if (numTasks + numSegments > tasks.length) {
+            tasks = Arrays.copyOf(tasks, Math.max(2 * tasks.length, numTasks + numSegments));
+        }
+        for (int i = numSegments - 3; i >= 0; i -= 3) {
+            tasks[numTasks++] = segments[i];
+            tasks[numTasks++] = segments[i + 1];
+            tasks[numTasks++] = segments[i + 2];
+        }
+        numSegments = 0;
+    }
+
+    /**
+     * Chain of a DDFS tree from its root down to end
+     */
+    void treeChain(int end, int[] up, int[] via) {
+        int length = 0;
+        for (int c = end; c != 0; c = up[c]) {
+            length++;
+        }
+        chainLength = length;
+        for (int c = end; c != 0; c = up[c]) {
+            chain[--length] = c;
+            chainVia[length] = via[c];
+        }
+    }
+
+    /**
+     * Segments of the path from start down to the chain and along it: start ... chain[0],
+     * then through each edge (chain[j - 1], chainVia[j]) and chainVia[j] ... chain[j]
+     *
+     * @param withLast if the last chain node is part of the path
+     */
+    void appendChain(int start, boolean withLast) {
+        addSegment(DOWN, start, chain[0]);
+        for (int j = 0; j < chainLength; j++) {
+            if (j > 0) {
+                addSegment(DOWN, chainVia[j], chain[j]);
+            }
+            if (j < chainLength - 1 || withLast) {
+                addSegment(NODE, chain[j], 0);
+            }
+        }
+    }
+
+    /**
+     * Push the path from v down to its bud b, b excluded, or that path upwards. An even node
+     * of a petal goes down inside its color to the bud of the petal, an odd one up to the
+     * bridge end of its color, across and down the other color.
+     */
+    void open(int v, int b, boolean up) {
+        int p = petal[v];
+        int b1 = bud[v];
+        int color = side[v];
+        numSegments = 0;
+
+        if (evenLevel[v] < oddLevel[v]) {
+            // one path down, through either color
+            findPath(v, b1, p, -1);
+            appendChain(v, false);
+        } else {
+            boolean green = color == GREEN;
+            findPath(green ? petalGreen[p] : petalRed[p], v, p, color);
+            appendChain(green ? petalFrom[p] : petalTo[p], true);
+            reverseSegments(0, numSegments);
+            findPath(green ? petalRed[p] : petalGreen[p], b1, p, 1 - color);
+            appendChain(green ? petalTo[p] : petalFrom[p], false);
+        }
+        addSegment(DOWN, b1, b);
+        pushSegments(up);
+    }
+
+    /**
+     * Chain from high down to low over props, through nodes of petal p of the given color
+     * and the petals inside them
+     */
+    void findPath(int high, int low, int p, int color) {
+        chain[0] = high;
+        chainLength = 1;
+        if (high == low) {
+            return;
+        }
+
+        findStamp++;
+        findMark[high] = findStamp;
+        findNextEdge[high] = graph.offset[high];
+        int lowLevel = minLevel(low);
+        int top = 1;
+        while (top > 0) {
+            int y = chain[top - 1];
+            int u = nextProp(y, findNextEdge);
+            if (u == 0) {
+                top--;
+                continue;
+            }
+            int w = climb(u, p, color, low);
+            if (w == 0 || erased[w]) {
+                continue;
+            }
+            if (w == low) {
+                chain[top] = low;
+                chainVia[top] = u;
+                chainLength = top + 1;
+                return;
+            }
+            if (findMark[w] != findStamp && minLevel(w) > lowLevel) {
+                findMark[w] = findStamp;
+                findNextEdge[w] = graph.offset[w];
+                chain[top] = w;
+                chainVia[top] = u;
+                top++;
+            }
+        }
+        throw new IllegalStateException("No path from " + high + " to " + low + " in petal " + p);
+    }
+
+    /**
+     * Up the buds from u to low or to a node of petal p of the given color, 0 if neither
+     */
+    int climb(int u, int p, int color, int low) {
+        int w = u;
+        while (w != low) {
+            if (petal[w] == p) {
+                return color < 0 || side[w] == color ? w : 0;
+            }
+            w = bud[w];
+            if (w == 0) {
+                return 0;
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Erase v and every node whose last prop came from an erased one
+     */
+    void erase(int v) {
+        if (erased[v]) {
+            return;
+        }
+        erased[v] = true;
+        int top = 0;
+        findStack[top++] = v;
+
+        int[] target = graph.target;
+        while (top > 0) {
+            int x = findStack[--top];
+            int m = mate[x];
+            if (evenLevel[x] != INFINITY) {
+                int level = evenLevel[x] + 1;
+                for (int e = graph.offset[x], end = graph.offset[x + 1]; e < end; e++) {
+                    int y = target[e];
+                    if (y != m && oddLevel[y] == level && level < evenLevel[y] && !erased[y] && --numProps[y] == 0) {
+                        erased[y] = true;
+                        findStack[top++] = y;
+                    }
+                }
+            }
+            if (oddLevel[x] != INFINITY && m != 0) {
+                int level = oddLevel[x] + 1;
+                if (evenLevel[m] == level && level < oddLevel[m] && !erased[m] && --numProps[m] == 0) {
+                    erased[m] = true;
+                    findStack[top++] = m;
+                }
+            }
+        }
+    }
+}
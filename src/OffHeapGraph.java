@@ -0,0 +1,241 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link Graph} in the same CSR layout, but outside the Java heap and with long edge
+ * offsets, so it can hold more than 2^31 entries. It is a {@link BinaryGraphFile} mapped in
+ * place: targets and weights are never copied, nor are the offsets of version 2 files,
+ * version 1 offsets are widened into direct memory.
+ * <p>
+ * Graphs too large for the heap are converted from a text edge list by {@link #convert},
+ * which streams the list twice and writes the rows straight into the mapped output.
+ */
+public class OffHeapGraph {
+    final int numVertices;
+    // target.length() == 2 * number of edges
+    final long numEntries;
+
+    final LargeLongArray offset;
+    final LargeIntArray target;
+    final LargeIntArray weight;
+
+    OffHeapGraph(int numVertices, LargeLongArray offset, LargeIntArray target, LargeIntArray weight) {
+        this.numVertices = numVertices;
+        this.numEntries = target.length();
+        this.offset = offset;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public long getNumEdges() {
+        return numEntries / 2;
+    }
+
+    public int degree(int v) {
+        return (int) (offset.get(v + 1) - offset.get(v));
+    }
+
+    /**
+     * Map a binary graph file of either version
+     */
+    public static OffHeapGraph map(String path) throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(BinaryGraphFile.HEADER_BYTES_LARGE).order(ByteOrder.LITTLE_ENDIAN);
+            file.read(head, 0);
+            if (head.position() < 4 * BinaryGraphFile.HEADER_INTS || head.getInt(0) != BinaryGraphFile.MAGIC) {
+                throw new IOException(path + " is not a binary graph file");
+            }
+            int version = head.getInt(4);
+            int numVertices = head.getInt(8);
+            FileChannel.MapMode mode = FileChannel.MapMode.READ_ONLY;
+
+            LargeLongArray offset;
+            long numEntries;
+            long position;
+            if (version == BinaryGraphFile.VERSION) {
+                numEntries = head.getInt(12);
+                position = 4L * BinaryGraphFile.HEADER_INTS;
+                checkSize(file, path, position + 4L * (numVertices + 2) + 8L * numEntries);
+
+                LargeIntArray narrow = LargeIntArray.map(file, mode, position, numVertices + 2);
+                offset = LargeLongArray.allocate(numVertices + 2);
+                for (int v = 0; v <= numVertices + 1; v++) {
+                    offset.set(v, narrow.get(v));
+                }
+                position += 4L * (numVertices + 2);
+            } else if (version == BinaryGraphFile.VERSION_LARGE) {
+                numEntries = head.getLong(16);
+                position = BinaryGraphFile.HEADER_BYTES_LARGE;
+                checkSize(file, path, position + 8L * (numVertices + 2) + 8L * numEntries);
+
+                offset = LargeLongArray.map(file, mode, position, numVertices + 2);
+                position += 8L * (numVertices + 2);
+            } else {
+                throw new IOException("Unsupported binary graph version " + version);
+            }
+            if (offset.get(0) != 0 || offset.get(numVertices + 1) != numEntries) {
+                throw new IOException(path + " has inconsistent offsets");
+            }
+
+            // the mappings stay valid once the file is closed
+            LargeIntArray target = LargeIntArray.map(file, mode, position, numEntries);
+            LargeIntArray weight = LargeIntArray.map(file, mode, position + 4L * numEntries, numEntries);
+            return new OffHeapGraph(numVertices, offset, target, weight);
+        }
+    }
+
+    private static void checkSize(FileChannel file, String path, long expected) throws IOException {
+        if (file.size() != expected) {
+            throw new IOException(path + " has " + file.size() + " bytes, expected " + expected);
+        }
+    }
+
+    /**
+     * Edges that can be streamed more than once, the same every time
+     */
+    interface EdgeStream {
+        void replay(EdgeListParser.EdgeVisitor visitor) throws IOException;
+    }
+
+    /**
+     * Write a text edge list as a version 2 binary graph file without holding the graph in
+     * the heap, see {@link #write}. The edge count of the header is not used.
+     *
+     * @return number of edges written
+     */
+    public static long convert(final String input, String output) throws IOException {
+        return write(new EdgeStream() {
+            @Override
+            public void replay(EdgeListParser.EdgeVisitor visitor) throws IOException {
+                try (FileChannel file = FileChannel.open(Paths.get(input), StandardOpenOption.READ)) {
+                    EdgeListParser.parse(file, visitor);
+                }
+            }
+        }, output);
+    }
+
+    /**
+     * Write edges as a version 2 binary graph file: one pass counts the degrees, the second
+     * fills every row of the mapped output. Self loops are dropped like {@link Graph.Builder}
+     * does.
+     *
+     * @return number of edges written
+     */
+    static long write(EdgeStream edges, String output) throws IOException {
+        DegreeCount count = new DegreeCount();
+        edges.replay(count);
+        int n = count.numVertices;
+        LargeLongArray fill = count.degree;
+
+        long numEntries = 0;
+        for (int v = 1; v <= n; v++) {
+            long degree = fill.get(v);
+            fill.set(v, numEntries);
+            numEntries += degree;
+        }
+
+        try (FileChannel file = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileChannel.MapMode mode = FileChannel.MapMode.READ_WRITE;
+            long position = BinaryGraphFile.HEADER_BYTES_LARGE;
+
+            LargeLongArray offset = LargeLongArray.map(file, mode, position, n + 2);
+            for (int v = 1; v <= n; v++) {
+                offset.set(v, fill.get(v));
+            }
+            offset.set(n + 1, numEntries);
+            position += 8L * (n + 2);
+
+            RowFill rows = new RowFill(n, fill,
+                    LargeIntArray.map(file, mode, position, numEntries),
+                    LargeIntArray.map(file, mode, position + 4L * numEntries, numEntries));
+            edges.replay(rows);
+
+            ByteBuffer head = ByteBuffer.allocate(BinaryGraphFile.HEADER_BYTES_LARGE).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(BinaryGraphFile.MAGIC).putInt(BinaryGraphFile.VERSION_LARGE).putInt(n).putInt(0)
+                    .putLong(numEntries).flip();
+            while (head.hasRemaining()) {
+                file.write(head, head.position());
+            }
+        }
+        return numEntries / 2;
+    }
+
+    /**
+     * First pass of convert: degree[v] of every vertex
+     */
+    static class DegreeCount implements EdgeListParser.EdgeVisitor {
+        int numVertices;
+        LargeLongArray degree;
+
+        @Override
+        public void header(int numVertices, int numEdges) {
+            this.numVertices = numVertices;
+            degree = LargeLongArray.allocate(numVertices + 1);
+        }
+
+        @Override
+        public void edge(int u, int v, int weight) {
+            if (u < 1 || u > numVertices || v < 1 || v > numVertices) {
+                throw new IllegalArgumentException("Edge (" + u + ", " + v + ") out of range 1..." + numVertices);
+            }
+            if (u != v) {
+                degree.set(u, degree.get(u) + 1);
+                degree.set(v, degree.get(v) + 1);
+            }
+        }
+    }
+
+    /**
+     * Second pass of convert: append every edge to the rows of both end points
+     */
+    static class RowFill implements EdgeListParser.EdgeVisitor {
+        final int numVertices;
+        // next free slot of each row
+        final LargeLongArray fill;
+        final LargeIntArray target;
+        final LargeIntArray weight;
+
+        RowFill(int numVertices, LargeLongArray fill, LargeIntArray target, LargeIntArray weight) {
+            this.numVertices = numVertices;
+            this.fill = fill;
+            this.target = target;
+            this.weight = weight;
+        }
+
+        @Override
+        public void header(int numVertices, int numEdges) {
+            if (numVertices != this.numVertices) {
+                throw new IllegalStateException("Input changed between passes");
+            }
+        }
+
+        @Override
+        public void edge(int u, int v, int w) {
+            if (u == v) {
+                return;
+            }
+            append(u, v, w);
+            append(v, u, w);
+        }
+
+        private void append(int u, int v, int w) {
+            long e = fill.get(u);
+            target.set(e, v);
+            weight.set(e, w);
+            fill.set(u, e + 1);
+        }
+    }
+}
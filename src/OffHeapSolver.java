@@ -0,0 +1,276 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * Maximum matching of an {@link OffHeapGraph} with nothing per node or edge in the Java heap.
+ * <p>
+ * It runs the phases of {@link BlossomSearch} like {@link EdmondsSolver}, with disjoint paths so
+ * a phase flips a maximal set of tree-disjoint paths, but the search keeps its dozen ints per
+ * node and the mate array in direct memory, and reads the edges from the mapping by long
+ * offsets. A greedy pass seeds the matching first. Every access goes through a buffer, so
+ * this is slower than the heap solvers and only worth it for graphs they cannot hold.
+ * <p>
+ * The direct memory of the state is kept for the next solve, give -XX:MaxDirectMemorySize
+ * for about 60 bytes per node.
+ */
+public class OffHeapSolver {
+    private final Search search = new Search();
+
+    // counters of the last solve
+    int numPhases;
+    int numGreedyMatched;
+
+    /**
+     * @return empty matching for graph in direct memory, mate[v] is the node matched to v
+     */
+    public static LargeIntArray newMate(OffHeapGraph graph) {
+        return LargeIntArray.allocate(graph.numVertices + 1L);
+    }
+
+    /**
+     * @param mate numVertices + 1 entries, may hold a matching to extend
+     * @return number of matched nodes
+     */
+    public int solve(OffHeapGraph graph, LargeIntArray mate) {
+        numGreedyMatched = greedy(graph, mate);
+        search.init(graph, mate);
+
+        numPhases = 0;
+        while (search.buildAlternatingTree() > 0) {
+            numPhases++;
+        }
+        return search.countMatched();
+    }
+
+    /**
+     * Match every free node with its first free neighbor
+     *
+     * @return number of nodes matched by this pass
+     */
+    static int greedy(OffHeapGraph graph, LargeIntArray mate) {
+        int matched = 0;
+        for (int u = 1; u <= graph.numVertices; u++) {
+            if (mate.get(u) != 0) {
+                continue;
+            }
+            for (long e = graph.offset.get(u), end = graph.offset.get(u + 1); e < end; e++) {
+                int v = graph.target.get(e);
+                if (mate.get(v) == 0 && v != u) {
+                    mate.set(u, v);
+                    mate.set(v, u);
+                    matched += 2;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    public int getNumPhases() {
+        return numPhases;
+    }
+
+    public int getNumGreedyMatched() {
+        return numGreedyMatched;
+    }
+
+    /**
+     * The search state of {@link EdmondsSolver}, one direct array per field
+     */
+    static class Search extends BlossomSearch {
+        OffHeapGraph graph;
+        LargeIntArray mate;
+
+        LargeIntArray label;
+        LargeIntArray root;
+        LargeIntArray parent;
+        LargeIntArray bridgeFrom;
+        LargeIntArray bridgeTo;
+        LargeIntArray blossom;
+        LargeIntArray base;
+        LargeIntArray ancestorMark;
+        LargeIntArray queue;
+        // 1 for dead trees
+        LargeIntArray dead;
+        LargeIntArray free;
+        LargeIntArray pending;
+
+        Search() {
+            super(true);
+        }
+
+        void init(OffHeapGraph graph, LargeIntArray mate) {
+            this.graph = graph;
+            this.mate = mate;
+
+            long size = graph.numVertices + 1L;
+            if (label == null || label.length() < size) {
+                label = LargeIntArray.allocate(size);
+                root = LargeIntArray.allocate(size);
+                parent = LargeIntArray.allocate(size);
+                bridgeFrom = LargeIntArray.allocate(size);
+                bridgeTo = LargeIntArray.allocate(size);
+                blossom = LargeIntArray.allocate(size);
+                base = LargeIntArray.allocate(size);
+                ancestorMark = LargeIntArray.allocate(size);
+                queue = LargeIntArray.allocate(size);
+                dead = LargeIntArray.allocate(size);
+                free = LargeIntArray.allocate(size);
+                pending = LargeIntArray.allocate(2 * size);
+            }
+            listFree(graph.numVertices);
+        }
+
+        @Override
+        int mate(int v) {
+            return mate.get(v);
+        }
+
+        @Override
+        void setMate(int v, int m) {
+            mate.set(v, m);
+        }
+
+        @Override
+        int rawLabel(int v) {
+            return label.get(v);
+        }
+
+        @Override
+        void setRawLabel(int v, int l) {
+            label.set(v, l);
+        }
+
+        @Override
+        int root(int v) {
+            return root.get(v);
+        }
+
+        @Override
+        void setRoot(int v, int r) {
+            root.set(v, r);
+        }
+
+        @Override
+        int parent(int v) {
+            return parent.get(v);
+        }
+
+        @Override
+        void setParent(int v, int p) {
+            parent.set(v, p);
+        }
+
+        @Override
+        int bridgeFrom(int v) {
+            return bridgeFrom.get(v);
+        }
+
+        @Override
+        void setBridgeFrom(int v, int x) {
+            bridgeFrom.set(v, x);
+        }
+
+        @Override
+        int bridgeTo(int v) {
+            return bridgeTo.get(v);
+        }
+
+        @Override
+        void setBridgeTo(int v, int y) {
+            bridgeTo.set(v, y);
+        }
+
+        @Override
+        int blossom(int v) {
+            return blossom.get(v);
+        }
+
+        @Override
+        void setBlossom(int v, int b) {
+            blossom.set(v, b);
+        }
+
+        @Override
+        int base(int v) {
+            return base.get(v);
+        }
+
+        @Override
+        void setBase(int v, int b) {
+            base.set(v, b);
+        }
+
+        @Override
+        int ancestorMark(int v) {
+            return ancestorMark.get(v);
+        }
+
+        @Override
+        void setAncestorMark(int v, int stamp) {
+            ancestorMark.set(v, stamp);
+        }
+
+        @Override
+        boolean dead(int r) {
+            return dead.get(r) != 0;
+        }
+
+        @Override
+        void setDead(int r, boolean dead) {
+            this.dead.set(r, dead ? 1 : 0);
+        }
+
+        @Override
+        int queue(int i) {
+            return queue.get(i);
+        }
+
+        @Override
+        void setQueue(int i, int v) {
+            queue.set(i, v);
+        }
+
+        @Override
+        int free(int i) {
+            return free.get(i);
+        }
+
+        @Override
+        void setFree(int i, int v) {
+            free.set(i, v);
+        }
+
+        @Override
+        int pending(long i) {
+            return pending.get(i);
+        }
+
+        @Override
+        void setPending(long i, int v) {
+            pending.set(i, v);
+        }
+
+        @Override
+        void clearLabels() {
+            label.fill(0, label.length(), 0);
+        }
+
+        @Override
+        void clearAncestorMarks() {
+            ancestorMark.fill(0, ancestorMark.length(), 0);
+        }
+
+        @Override
+        boolean scan(int u) {
+            LargeIntArray target = graph.target;
+            for (long e = graph.offset.get(u), end = graph.offset.get(u + 1); e < end; e++) {
+                if (visit(u, target.get(e))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers of a solve. Instrumentation is off unless a solver is given an
+ * instance, the only cost then is a null check per phase, per scanned node and per blossom.
+ * <p>
+ * A solver owns its instance while it runs and is the only one to write it, so the
+ * counters need no atomic updates; they are volatile, so JMX and the exit dump see every
+ * write before the one they read. Others should read a {@link #snapshot()}, which may lag a
+ * phase behind. Threads that share an instance, e.g. the components of one solve, count
+ * into their own and {@link #add} it.
+ */
+public class SolverStats implements SolverStatsMBean {
+    // last JMX id handed out
+    static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    // alternating forest builds (Edmonds) or BFS layerings (Hopcroft-Karp)
+    volatile long phases;
+    volatile long augmentations;
+    // odd cycles contracted, their total number of sub-blossoms and the deepest nesting
+    volatile long blossoms;
+    volatile long blossomNodes;
+    volatile int maxBlossomDepth;
+    // adjacency entries looked at by the searches
+    volatile long edgesScanned;
+
+    volatile long loadNanos;
+    volatile long initialNanos;
+    volatile long searchNanos;
+    volatile long outputNanos;
+    volatile long verifyNanos;
+
+    /**
+     * Hand stats to the solvers that keep them, the others are left uninstrumented
+     */
+    static void attach(MatchingSolver solver, SolverStats stats) {
+        if (solver instanceof EdmondsSolver) {
+            ((EdmondsSolver) solver).stats = stats;
+        } else if (solver instanceof MultiPathSolver) {
+            ((MultiPathSolver) solver).stats = stats;
+        } else if (solver instanceof HopcroftKarpSolver) {
+            ((HopcroftKarpSolver) solver).stats = stats;
+        } else if (solver instanceof WeightedMatchingSolver) {
+            ((WeightedMatchingSolver) solver).stats = stats;
+        } else if (solver instanceof ComponentSolver) {
+            ((ComponentSolver) solver).stats = stats;
+        }
+    }
+
+    /**
+     * Fold the counters of another solve into these, e.g. one per component
+     */
+    public synchronized void add(SolverStats other) {
+        phases += other.phases;
+        augmentations += other.augmentations;
+        blossoms += other.blossoms;
+        blossomNodes += other.blossomNodes;
+        maxBlossomDepth = Math.max(maxBlossomDepth, other.maxBlossomDepth);
+        edgesScanned += other.edgesScanned;
+        loadNanos += other.loadNanos;
+        initialNanos += other.initialNanos;
+        searchNanos += other.searchNanos;
+        outputNanos += other.outputNanos;
+        verifyNanos += other.verifyNanos;
+    }
+
+    /**
+     * @return a copy that no solver writes to
+     */
+    public SolverStats snapshot() {
+        SolverStats copy = new SolverStats();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Register this instance with the platform MBean server, under an id of its own so several
+     * solves in one JVM do not clash
+     *
+     * @return name it is registered under, MaximumMatching:type=SolverStats,id=n
+     */
+    public ObjectName register() throws JMException {
+        ObjectName name = new ObjectName("MaximumMatching:type=SolverStats,id=" + NEXT_ID.incrementAndGet());
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        return name;
+    }
+
+    @Override
+    public long getPhases() {
+        return phases;
+    }
+
+    @Override
+    public long getAugmentations() {
+        return augmentations;
+    }
+
+    @Override
+    public long getBlossoms() {
+        return blossoms;
+    }
+
+    @Override
+    public long getBlossomNodes() {
+        return blossomNodes;
+    }
+
+    @Override
+    public int getMaxBlossomDepth() {
+        return maxBlossomDepth;
+    }
+
+    @Override
+    public long getEdgesScanned() {
+        return edgesScanned;
+    }
+
+    @Override
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    @Override
+    public long getInitialNanos() {
+        return initialNanos;
+    }
+
+    @Override
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    @Override
+    public long getOutputNanos() {
+        return outputNanos;
+    }
+
+    @Override
+    public long getVerifyNanos() {
+        return verifyNanos;
+    }
+
+    @Override
+    public String toJson() {
+        return "{\"phases\": " + phases
+                + ", \"augmentations\": " + augmentations
+                + ", \"blossoms\": " + blossoms
+                + ", \"blossomNodes\": " + blossomNodes
+                + ", \"maxBlossomDepth\": " + maxBlossomDepth
+                + ", \"edgesScanned\": " + edgesScanned
+                + ", \"loadNanos\": " + loadNanos
+                + ", \"initialNanos\": " + initialNanos
+                + ", \"searchNanos\": " + searchNanos
+                + ", \"outputNanos\": " + outputNanos
+                + ", \"verifyNanos\": " + verifyNanos + "}";
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
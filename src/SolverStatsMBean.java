@@ -0,0 +1,32 @@
+/**
+ * @author Jun Yu
+ */
+
+/**
+ * JMX view of {@link SolverStats}, registered as MaximumMatching:type=SolverStats,id=n
+ */
+public interface SolverStatsMBean {
+    long getPhases();
+
+    long getAugmentations();
+
+    long getBlossoms();
+
+    long getBlossomNodes();
+
+    int getMaxBlossomDepth();
+
+    long getEdgesScanned();
+
+    long getLoadNanos();
+
+    long getInitialNanos();
+
+    long getSearchNanos();
+
+    long getOutputNanos();
+
+    long getVerifyNanos();
+
+    String toJson();
+}
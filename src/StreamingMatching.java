@@ -0,0 +1,360 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Semi-streaming matching of an edge list file that does not fit in memory: only O(n)
+ * state per vertex is kept and every pass reads the file once, in order.
+ * <p>
+ * The first pass matches every edge whose end points are both free, a maximal matching
+ * and so at least half the maximum. The later passes look for short augmenting paths the
+ * way of McGregor, "Finding graph matchings in data streams" (2005): a matching without
+ * augmenting paths of at most k matched edges has at least k / (k + 1) of the maximum, so
+ * k = ceil(1 / epsilon) - 1 gives a (1 - epsilon) approximation.
+ * <p>
+ * Every phase splits the graph at random: a free node goes left or right, a matched edge
+ * puts one end left and the other right, and only the edges from left to right are used.
+ * Every free left node is the root of a layer 0, a matched left node is in layer i + 1
+ * once an edge reaches its mate from a left node of layer i, and the layers are relaxed
+ * pass after pass like Bellman-Ford, so after k + 1 passes every node has its least layer
+ * up to k. An edge from a labeled left node to a free right node closes an augmenting path
+ * of at most k matched edges, which is flipped at once; its nodes are out for the rest of
+ * the phase, so the paths of a phase are vertex disjoint. The split is bipartite, so there
+ * are no blossoms.
+ * <p>
+ * A path of j matched edges lies along the split with probability at least 2^-(j + 1), and
+ * a phase that ends without flipping one has searched every path along its split. So once
+ * 2^(k + 1) ln(1 / failure) phases in a row have flipped nothing, a short augmenting path
+ * is left with probability below failure and the matching is within (1 - epsilon) of the
+ * maximum. A phase without free nodes on both sides needs no pass. The passes grow
+ * exponentially in 1 / epsilon; maxPasses stops early, without the guarantee. The matched
+ * nodes of the first pass cover every edge, which bounds the maximum and is reported with
+ * the result.
+ */
+public class StreamingMatching implements EdgeListParser.EdgeVisitor {
+    static final int UNREACHED = Integer.MAX_VALUE;
+
+    final String path;
+    // a (1 - epsilon) approximation with probability 1 - failure
+    double epsilon = 0.25;
+    double failure = 0.01;
+    int maxPasses = 1024;
+    Random random = new Random();
+    // one line per pass, null for none
+    PrintStream log;
+
+    int numVertices;
+    int[] mate;
+    int numMatched;
+    // matched nodes after the first pass, they cover every edge, so a maximum matching has at
+    // most this many edges
+    int coverSize;
+
+    // most matched edges of an augmenting path searched
+    int maxLength;
+    // split of the running phase
+    boolean[] left;
+    // left node: least layer found, UNREACHED for none
+    int[] layer;
+    // matched right node: the left node it was reached from
+    int[] parent;
+    // on a path flipped in this phase
+    boolean[] dead;
+    // scratch for a path, right and left nodes by turns
+    int[] augmenting;
+
+    boolean greedyPass;
+    int numPasses;
+    int numPhases;
+    // this pass lowered a layer or augmented
+    boolean changed;
+    int numAugmented;
+    // the last phases in a row that flipped nothing
+    int numCleanPhases;
+    boolean guaranteed;
+
+    /**
+     * @param path text edge list, see {@link EdgeListParser}, the edge count of the header
+     *             is not used
+     */
+    public StreamingMatching(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Make the passes
+     *
+     * @return number of matched nodes
+     */
+    public int run() throws IOException {
+        greedyPass = true;
+        pass();
+        greedyPass = false;
+        coverSize = numMatched;
+        report();
+
+        maxLength = Math.max(1, (int) Math.ceil(1 / epsilon) - 1);
+        long needed = phasesNeeded();
+        left = new boolean[numVertices + 1];
+        layer = new int[numVertices + 1];
+        parent = new int[numVertices + 1];
+        dead = new boolean[numVertices + 1];
+        augmenting = new int[2 * maxLength + 2];
+
+        while (numCleanPhases < needed && numPasses < maxPasses) {
+            if (phase()) {
+                numCleanPhases++;
+            } else {
+                numCleanPhases = 0;
+            }
+        }
+        guaranteed = numCleanPhases >= needed;
+        return numMatched;
+    }
+
+    /**
+     * Phases in a row without an augmenting path that leave one of at most maxLength
+     * matched edges with probability below failure
+     */
+    long phasesNeeded() {
+        double phases = Math.ceil(Math.pow(2, maxLength + 1) * Math.log(1 / failure));
+        return phases < Long.MAX_VALUE ? Math.max(1, (long) phases) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Split the graph at random and flip the augmenting paths along the split
+     *
+     * @return whether the phase searched every path along its split and found none
+     */
+    private boolean phase() throws IOException {
+        numPhases++;
+        boolean freeLeft = false;
+        boolean freeRight = false;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mate[v] == 0) {
+                left[v] = random.nextBoolean();
+                freeLeft |= left[v];
+                freeRight |= !left[v];
+            } else if (v < mate[v]) {
+                left[v] = random.nextBoolean();
+                left[mate[v]] = !left[v];
+            }
+            layer[v] = left[v] && mate[v] == 0 ? 0 : UNREACHED;
+            dead[v] = false;
+        }
+        if (!freeLeft || !freeRight) {
+            return true;
+        }
+
+        numAugmented = 0;
+        for (int i = 0; i <= maxLength; i++) {
+            if (numPasses >= maxPasses) {
+                return false;
+            }
+            changed = false;
+            pass();
+            report();
+            if (!changed) {
+                break;
+            }
+        }
+        return numAugmented == 0;
+    }
+
+    private void pass() throws IOException {
+        try (FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            EdgeListParser.parse(file, this);
+        }
+        numPasses++;
+    }
+
+    private void report() {
+        if (log != null) {
+            log.println("pass " + numPasses + ": " + numMatched + " matched nodes"
+                    + (greedyPass ? " (maximal)" : ", phase " + numPhases + ", " + numAugmented + " augmenting paths"));
+        }
+    }
+
+    @Override
+    public void header(int numVertices, int numEdges) {
+        if (mate == null) {
+            this.numVertices = numVertices;
+            mate = new int[numVertices + 1];
+        } else if (numVertices != this.numVertices) {
+            throw new IllegalStateException("Input changed between passes");
+        }
+    }
+
+    @Override
+    public void edge(int u, int v, int weight) {
+        if (u < 1 || u > numVertices || v < 1 || v > numVertices) {
+            throw new IllegalArgumentException("Edge (" + u + ", " + v + ") out of range 1..." + numVertices);
+        }
+        if (u == v) {
+            return;
+        }
+
+        if (greedyPass) {
+            if (mate[u] == 0 && mate[v] == 0) {
+                mate[u] = v;
+                mate[v] = u;
+                numMatched += 2;
+            }
+            return;
+        }
+
+        if (left[u] == left[v]) {
+            return;
+        }
+        int x = left[u] ? u : v;
+        int y = left[u] ? v : u;
+        if (layer[x] == UNREACHED || dead[x] || dead[y] || mate[x] == y) {
+            return;
+        }
+        if (mate[y] == 0) {
+            augment(x, y);
+        } else if (layer[x] < maxLength && layer[x] + 1 < layer[mate[y]]) {
+            layer[mate[y]] = layer[x] + 1;
+            parent[y] = x;
+            changed = true;
+        }
+    }
+
+    /**
+     * Match left node x with free right node y and flip the path from x down the layers to
+     * its root, unless it runs into a path flipped before in this phase
+     */
+    private void augment(int x, int y) {
+        int length = 0;
+        augmenting[length++] = y;
+        for (int v = x; ; v = parent[mate[v]]) {
+            // the layers fall along the parents, so this ends at a root
+            if (dead[v] || mate[v] != 0 && dead[mate[v]]) {
+                return;
+            }
+            augmenting[length++] = v;
+            if (mate[v] == 0) {
+                break;
+            }
+            augmenting[length++] = mate[v];
+        }
+        for (int i = 0; i < length; i += 2) {
+            mate[augmenting[i]] = augmenting[i + 1];
+            mate[augmenting[i + 1]] = augmenting[i];
+            dead[augmenting[i]] = true;
+            dead[augmenting[i + 1]] = true;
+        }
+        numMatched += 2;
+        numAugmented++;
+        changed = true;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumMatched() {
+        return numMatched;
+    }
+
+    public int getNumPasses() {
+        return numPasses;
+    }
+
+    public int getNumPhases() {
+        return numPhases;
+    }
+
+    /**
+     * @return whether enough phases found no augmenting path for the (1 - epsilon) guarantee,
+     * false when maxPasses stopped the search first
+     */
+    public boolean isGuaranteed() {
+        return guaranteed;
+    }
+
+    /**
+     * @return upper bound on the matched nodes of a maximum matching
+     */
+    public int getMaximumBound() {
+        return (int) Math.min(numVertices, 2L * coverSize);
+    }
+
+    /**
+     * Usage: StreamingMatching input [--epsilon=e] [--failure=p] [--max-passes=p]
+     * [--format=text|pairs|binary] [--output=file] [--verbose], reports the passes, the
+     * matching size and how far it can be from maximum on stderr and writes the matching to
+     * stdout without output.
+     */
+    public static void main(String[] args) throws IOException {
+        String input = null;
+        Double epsilon = null;
+        Double failure = null;
+        Integer maxPasses = null;
+        MatchingWriter.Format format = MatchingWriter.Format.TEXT;
+        String output = null;
+        boolean verbose = false;
+
+        for (String arg : args) {
+            if (arg.startsWith("--epsilon=")) {
+                epsilon = Double.parseDouble(arg.substring("--epsilon=".length()));
+            } else if (arg.startsWith("--failure=")) {
+                failure = Double.parseDouble(arg.substring("--failure=".length()));
+            } else if (arg.startsWith("--max-passes=")) {
+                maxPasses = Integer.parseInt(arg.substring("--max-passes=".length()));
+            } else if (arg.startsWith("--format=")) {
+                format = MatchingWriter.Format.forName(arg.substring("--format=".length()));
+                if (format == null) {
+                    System.err.println("Unknown output format " + arg);
+                    System.exit(-1);
+                }
+            } else if (arg.startsWith("--output=")) {
+                output = arg.substring("--output=".length());
+            } else if (arg.equals("--verbose")) {
+                verbose = true;
+            } else {
+                input = arg;
+            }
+        }
+        if (input == null) {
+            System.err.println("Usage: StreamingMatching input [--epsilon=e] [--failure=p] [--max-passes=p]"
+                    + " [--format=text|pairs|binary] [--output=file] [--verbose]");
+            System.exit(-1);
+        }
+
+        StreamingMatching matching = new StreamingMatching(input);
+        if (epsilon != null) {
+            matching.epsilon = epsilon;
+        }
+        if (failure != null) {
+            matching.failure = failure;
+        }
+        if (maxPasses != null) {
+            matching.maxPasses = maxPasses;
+        }
+        if (verbose) {
+            matching.log = System.err;
+        }
+        int numMatched = matching.run();
+        System.err.println("epsilon " + matching.epsilon + ": " + numMatched + " matched nodes in "
+                + matching.numPasses + " passes, " + matching.numPhases + " phases, "
+                + (matching.guaranteed ? "at least " + (1 - matching.epsilon) + " of the maximum with probability "
+                + (1 - matching.failure) : "no guarantee, out of passes")
+                + ", the maximum has at most " + matching.getMaximumBound());
+
+        OutputStream out = output != null ? new FileOutputStream(output) : System.out;
+        new MatchingWriter(out).write(matching.mate, matching.numVertices, format);
+        if (output != null) {
+            out.close();
+        }
+    }
+}
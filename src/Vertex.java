@@ -2,78 +2,44 @@
  * @author Jun Yu
  */
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
+/**
+ * View of one vertex of a matching. The solvers keep their state in primitive arrays
+ * indexed by vertex id, a view is only made on request, see {@link MaximumMatching#vertex},
+ * and reads the mate array it was made from.
+ */
 public class Vertex {
     final int index;
+    // null for a vertex of no matching yet
+    final int[] mate;
 
-    // for alternating tree
-    int augmentingRoot;
-    int augmentingParent;
-    LinkedList<Integer> augmentingChildren = new LinkedList<>();
-    boolean seen;
-
-
-    LinkedList<Integer> adj = new LinkedList<>();
-    LinkedList<Integer> weight = new LinkedList<>();
-    // otherwise inner
-    boolean isOuter;
-
-    // for traversal
-    boolean visited;
-
-    boolean inMatchingSet;
-    int mate;
-
-    // flag
-
-    // run is an indicator that mark this vertex is in which recursion
-    // If run equals to the flag in MaximumMatching instance, this vertex will be processed
-    int run;
-    boolean toBeProcessed;
-
+    /**
+     * A free vertex
+     */
     public Vertex(int index) {
-        this.index = index;
-        isOuter = false;
-        inMatchingSet = false;
-        visited = false;
-        toBeProcessed = true;
+        this(index, null);
     }
 
-    public boolean isInMatchingSet() {
-        return inMatchingSet;
+    Vertex(int index, int[] mate) {
+        this.index = index;
+        this.mate = mate;
     }
 
-    public boolean isFreeNode() {
-        return !isInMatchingSet();
+    public int getIndex() {
+        return index;
     }
 
-    public void addAdj(int v, int weight) {
-        this.adj.add(v);
-        this.weight.add(weight);
+    /**
+     * @return the vertex matched to this one, 0 if it is free
+     */
+    public int getMate() {
+        return mate != null ? mate[index] : 0;
     }
 
-    public void removeAdj(int adjIndex) {
-        Iterator<Integer> adjItor = this.adj.iterator();
-        Iterator<Integer> weightItor = this.weight.iterator();
-
-        while (adjItor.hasNext()) {
-            int index = adjItor.next();
-            int weight = weightItor.next();
-
-            if (index == adjIndex) {
-                adjItor.remove();
-                return;
-            }
-        }
-    }
-
-    public boolean isOuter() {
-        return isOuter;
+    public boolean isInMatchingSet() {
+        return getMate() != 0;
     }
 
-    public boolean isInner() {
-        return !isOuter;
+    public boolean isFreeNode() {
+        return !isInMatchingSet();
     }
 }
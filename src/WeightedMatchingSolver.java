@@ -0,0 +1,1275 @@
+/**
+ * @author Jun Yu
+ */
+
+import java.util.Arrays;
+
+/**
+ * Maximum-weight matching in general graphs, primal-dual Edmonds with blossom duals and
+ * priority queues of slacks, RT = O(n m log n) plus the expansions of T-blossoms, which walk
+ * their vertices.
+ * <p>
+ * Every stage grows S/T labeled alternating trees over tight edges only. When no tight
+ * edge is left the duals are moved by the smallest slack, which makes new edges tight,
+ * expands a T-blossom whose dual dropped to 0, or ends the stage. Slack is tracked per
+ * vertex and per S-blossom (least-slack edge to every other S-blossom).
+ * <p>
+ * A dual step moves every S-vertex down and every T-vertex up by the same amount, so the
+ * duals are not touched one by one: shift is the total of the steps of the stage, a
+ * top-level blossom notes it when it is labeled, and the dual of a vertex is its stored one
+ * moved by the steps since. The vertices are written back when their top-level blossom
+ * changes and at the end of the stage. The least slack of every free vertex, of every
+ * S-blossom and the duals of the T-blossoms sit in heaps keyed by the shift at which they
+ * reach 0, entries that lost their label are dropped when they come to the top, so a dual
+ * step costs O(log n) instead of O(n).
+ * <p>
+ * solve extends the matching it is given. Every pair is matched over its heaviest edge and
+ * its two duals add up to that edge, split by a few rounds that move each split to the
+ * middle of what its other edges ask for; the free vertices share the least dual that keeps
+ * their edges feasible. Pairs that do not fit such duals, two pairs joined by an edge
+ * heavier than their duals or a vertex below the free dual, are dropped one round at a time.
+ * Without blossom duals an optimum over odd cycles can lose pairs this way, the solve then
+ * finds them again.
+ * <p>
+ * Vertex duals are kept doubled, so all arithmetic stays integral. Edge endpoints are
+ * numbered 2k (first end of edge k) and 2k + 1 (second end); mate of a vertex is stored as
+ * the endpoint at the other side while solving. Blossoms are numbered n+1 ... 2n+1.
+ * Sub-blossoms are expanded recursively, the depth is the blossom nesting depth. The arrays
+ * are kept for the next solve.
+ */
+public class WeightedMatchingSolver implements MatchingSolver {
+    // rounds of moving the dual splits of a warm start
+    static final int WARM_START_PASSES = 20;
+
+    // maximize the weight among the matchings of maximum cardinality
+    final boolean maxCardinality;
+
+    int numVertices;
+    int numEdges;
+    // vertex ids 0...numVertices, 0 is an isolated dummy so graph ids can be used directly
+    int numNodes;
+
+    // end points of the edges, endpoint[2k] and endpoint[2k + 1]
+    int[] endpoint;
+    int[] edgeWeight;
+
+    // endpoints p at the other side of the edges incident to v are neighbend[neighbendOffset[v] ...]
+    int[] neighbendOffset;
+    int[] neighbend;
+
+    // remote endpoint of the matched edge, -1 if single
+    int[] mateEndpoint;
+
+    // 0 free, 1 S, 2 T, of top-level blossoms and of the vertices that received the label
+    int[] label;
+    // endpoint through which the label was obtained
+    int[] labelEnd;
+    // top-level blossom containing a vertex
+    int[] inBlossom;
+    int[] blossomParent;
+    int[] blossomBase;
+    // sub-blossoms of a blossom in cycle order starting at the base, and the endpoints
+    // joining child i and child i + 1
+    int[][] blossomChilds;
+    int[][] blossomEndps;
+    // least-slack edge to a different S-blossom
+    int[] bestEdge;
+    int[][] blossomBestEdges;
+
+    int[] unusedBlossoms;
+    int numUnusedBlossoms;
+
+    // stored duals, of a top-level blossom and its vertices as of labelShift[blossom]
+    long[] dualVar;
+    boolean[] allowEdge;
+
+    // total of the dual steps of this stage, and its value when a top-level blossom got its
+    // label
+    long shift;
+    long[] labelShift;
+    // least dual + labelShift over the S-vertices, their duals all move together
+    long minDualKey;
+    // free vertices by least slack + shift to an S-vertex, S-blossoms by least slack
+    // + 2 shift to another one, T-blossoms by dual + shift
+    SlackHeap freeSlack;
+    SlackHeap pairSlack;
+    SlackHeap blossomDuals;
+
+    // S vertices to scan
+    int[] queue;
+    int queueSize;
+
+    // scratch space
+    int[] leafStack;
+    int[] leaves;
+    int[] bestEdgeTo;
+    int[] bestEdgeToUsed;
+
+    // counters, null when instrumentation is off
+    SolverStats stats;
+    // with stats: nesting depth of a blossom
+    int[] blossomDepth;
+    // snapshots between stages, null for none
+    Checkpoint checkpoint;
+    // pairs of the last matching passed to solve that were dropped
+    int numDropped;
+
+    public WeightedMatchingSolver() {
+        this(false);
+    }
+
+    /**
+     * @param maxCardinality only consider matchings of maximum cardinality
+     */
+    public WeightedMatchingSolver(boolean maxCardinality) {
+        this.maxCardinality = maxCardinality;
+    }
+
+    /**
+     * @param mate matching to extend, pairs that do not fit the duals are dropped; the
+     *             matching on return
+     * @return number of matched nodes
+     */
+    @Override
+    public int solve(Graph graph, int[] mate) {
+        init(graph);
+        numDropped = warmStart(mate);
+
+        long start = stats != null ? System.nanoTime() : 0;
+        for (int stage = 0; stage < numNodes; stage++) {
+            boolean augmented = runStage();
+            if (stats != null) {
+                stats.phases++;
+            }
+            if (!augmented) {
+                break;
+            }
+            commitDuals();
+
+            // end of a stage, expand all S-blossoms with zero dual
+            for (int b = numNodes; b < 2 * numNodes; b++) {
+                if (blossomParent[b] == -1 && blossomBase[b] >= 0 && label[b] == 1 && dualVar[b] == 0) {
+                    expandBlossom(b, true);
+                }
+            }
+
+            if (stats != null) {
+                stats.augmentations++;
+            }
+            if (checkpoint != null) {
+                copyMate(mate);
+                checkpoint.phaseDone(graph, mate);
+            }
+        }
+        if (stats != null) {
+            stats.searchNanos += System.nanoTime() - start;
+        }
+        return copyMate(mate);
+    }
+
+    /**
+     * Write the matching in vertex ids to mate
+     *
+     * @return number of matched nodes
+     */
+    int copyMate(int[] mate) {
+        int num = 0;
+        for (int v = 1; v <= numVertices; v++) {
+            if (mateEndpoint[v] >= 0) {
+                mate[v] = endpoint[mateEndpoint[v]];
+                num++;
+            } else {
+                mate[v] = 0;
+            }
+        }
+        return num;
+    }
+
+    /**
+     * Total weight of a matching, every pair counted once
+     */
+    public static long weight(Graph graph, int[] mate) {
+        long total = 0;
+        for (int u = 1; u <= graph.numVertices; u++) {
+            if (mate[u] > u) {
+                // parallel edges: the matching uses the heaviest
+                long best = Long.MIN_VALUE;
+                for (int e = graph.offset[u], end = graph.offset[u + 1]; e < end; e++) {
+                    if (graph.target[e] == mate[u]) {
+                        best = Math.max(best, graph.weight[e]);
+                    }
+                }
+                total += best;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Pairs of the last matching passed to solve that no duals could hold
+     */
+    public int getNumDropped() {
+        return numDropped;
+    }
+
+    void init(Graph graph) {
+        numVertices = graph.numVertices;
+        numNodes = numVertices + 1;
+        numEdges = graph.numEdges;
+
+        int[] offset = graph.offset;
+        int[] target = graph.target;
+        int size = 2 * numNodes;
+
+        if (endpoint == null || edgeWeight.length < numEdges) {
+            endpoint = new int[2 * numEdges];
+            edgeWeight = new int[numEdges];
+            neighbend = new int[2 * numEdges];
+            allowEdge = new boolean[numEdges];
+        }
+        if (mateEndpoint == null || mateEndpoint.length < numNodes) {
+            neighbendOffset = new int[numNodes + 1];
+            mateEndpoint = new int[numNodes];
+            label = new int[size];
+            labelEnd = new int[size];
+            inBlossom = new int[numNodes];
+            blossomParent = new int[size];
+            blossomBase = new int[size];
+            blossomChilds = new int[size][];
+            blossomEndps = new int[size][];
+            bestEdge = new int[size];
+            blossomBestEdges = new int[size][];
+            unusedBlossoms = new int[numNodes];
+            dualVar = new long[size];
+            labelShift = new long[size];
+            freeSlack = new SlackHeap(numNodes);
+            pairSlack = new SlackHeap(size);
+            blossomDuals = new SlackHeap(size);
+            queue = new int[Math.max(16, numNodes)];
+            leafStack = new int[size];
+            leaves = new int[numNodes];
+            bestEdgeTo = new int[size];
+            bestEdgeToUsed = new int[size];
+            blossomDepth = null;
+        }
+        if (stats != null && blossomDepth == null) {
+            blossomDepth = new int[labelShift.length];
+        }
+
+        // every edge once, from its smaller end point
+        int k = 0;
+        for (int u = 1; u <= numVertices; u++) {
+            for (int e = offset[u], end = offset[u + 1]; e < end; e++) {
+                int v = target[e];
+                if (v > u) {
+                    endpoint[2 * k] = u;
+                    endpoint[2 * k + 1] = v;
+                    edgeWeight[k] = graph.weight[e];
+                    k++;
+                }
+            }
+        }
+
+        // same row sizes as the graph, leafStack holds the fill positions
+        System.arraycopy(offset, 0, neighbendOffset, 0, numNodes + 1);
+        int[] fill = leafStack;
+        System.arraycopy(offset, 0, fill, 0, numNodes);
+        for (k = 0; k < numEdges; k++) {
+            neighbend[fill[endpoint[2 * k]]++] = 2 * k + 1;
+            neighbend[fill[endpoint[2 * k + 1]]++] = 2 * k;
+        }
+
+        Arrays.fill(mateEndpoint, 0, numNodes, -1);
+        Arrays.fill(labelEnd, 0, size, -1);
+        Arrays.fill(blossomParent, 0, size, -1);
+        Arrays.fill(blossomBase, 0, size, -1);
+        Arrays.fill(blossomChilds, 0, size, null);
+        Arrays.fill(blossomEndps, 0, size, null);
+        Arrays.fill(bestEdge, 0, size, -1);
+        Arrays.fill(blossomBestEdges, 0, size, null);
+        Arrays.fill(dualVar, 0, size, 0);
+        Arrays.fill(labelShift, 0, size, 0);
+        Arrays.fill(bestEdgeTo, 0, size, -1);
+        if (blossomDepth != null) {
+            Arrays.fill(blossomDepth, 0, size, 0);
+        }
+        shift = 0;
+        numUnusedBlossoms = 0;
+
+        for (int v = 0; v < numNodes; v++) {
+            inBlossom[v] = v;
+            blossomBase[v] = v;
+        }
+        for (int b = size - 1; b >= numNodes; b--) {
+            unusedBlossoms[numUnusedBlossoms++] = b;
+        }
+    }
+
+    /**
+     * Match the pairs of mate over their heaviest edges and set the vertex duals: the two
+     * duals of a pair add up to twice its weight and are split so the edges around it are
+     * feasible, the free vertices share the least dual that keeps their edges feasible and
+     * is at most every matched one. Pairs that do not fit are dropped.
+     *
+     * @return number of pairs dropped
+     */
+    int warmStart(int[] mate) {
+        for (int v = 1; v <= numVertices; v++) {
+            int m = mate[v];
+            if (m <= v || m > numVertices || mate[m] != v) {
+                continue;
+            }
+            int best = -1;
+            for (int i = neighbendOffset[v], end = neighbendOffset[v + 1]; i < end; i++) {
+                int p = neighbend[i];
+                if (endpoint[p] == m && (best == -1 || edgeWeight[p / 2] > edgeWeight[best / 2])) {
+                    best = p;
+                }
+            }
+            if (best != -1) {
+                mateEndpoint[v] = best;
+                mateEndpoint[m] = best ^ 1;
+            }
+        }
+        for (int v = 0; v < numNodes; v++) {
+            dualVar[v] = mateEndpoint[v] >= 0 ? edgeWeight[mateEndpoint[v] / 2] : 0;
+        }
+
+        int dropped = 0;
+        long freeDual;
+        while (true) {
+            splitDuals();
+            freeDual = freeDual();
+            boolean drop = false;
+            for (int k = 0; k < numEdges; k++) {
+                int u = endpoint[2 * k];
+                int v = endpoint[2 * k + 1];
+                if (mateEndpoint[u] >= 0 && mateEndpoint[v] >= 0 && endpoint[mateEndpoint[u]] != v
+                        && dualVar[u] + dualVar[v] < 2L * edgeWeight[k]) {
+                    // an edge between two pairs heavier than their duals
+                    unmatch(edgeWeight[mateEndpoint[u] / 2] < edgeWeight[mateEndpoint[v] / 2] ? u : v);
+                    dropped++;
+                    drop = true;
+                }
+            }
+            for (int v = 1; v <= numVertices && !drop; v++) {
+                if (mateEndpoint[v] >= 0 && dualVar[v] < freeDual) {
+                    unmatch(v);
+                    dropped++;
+                    drop = true;
+                }
+            }
+            if (!drop) {
+                break;
+            }
+        }
+
+        for (int v = 0; v < numNodes; v++) {
+            if (mateEndpoint[v] < 0) {
+                dualVar[v] = freeDual;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Move the split of every pair towards the middle of what its edges allow, aiming for the
+     * free dual only the edges between free vertices force
+     */
+    void splitDuals() {
+        long freeDual = 0;
+        for (int k = 0; k < numEdges; k++) {
+            if (mateEndpoint[endpoint[2 * k]] < 0 && mateEndpoint[endpoint[2 * k + 1]] < 0) {
+                freeDual = Math.max(freeDual, edgeWeight[k]);
+            }
+        }
+        for (int pass = 0; pass < WARM_START_PASSES; pass++) {
+            boolean moved = false;
+            for (int u = 1; u <= numVertices; u++) {
+                int v = mateEndpoint[u] >= 0 ? endpoint[mateEndpoint[u]] : 0;
+                if (v <= u) {
+                    continue;
+                }
+                long total = 2L * edgeWeight[mateEndpoint[u] / 2];
+                long lowU = lowestDual(u, v, freeDual);
+                long lowV = lowestDual(v, u, freeDual);
+                // the middle also when they overlap, so both ends fall short alike
+                long dualU = lowU + (total - lowU - lowV) / 2;
+                if (dualU != dualVar[u]) {
+                    dualVar[u] = dualU;
+                    dualVar[v] = total - dualU;
+                    moved = true;
+                }
+            }
+            if (!moved) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Least dual of the free vertices that keeps their edges feasible, at least 0 unless
+     * maxCardinality, the dual of every vertex when nothing is matched
+     */
+    long freeDual() {
+        long dual = Long.MIN_VALUE;
+        for (int k = 0; k < numEdges; k++) {
+            int u = endpoint[2 * k];
+            int v = endpoint[2 * k + 1];
+            long w = 2L * edgeWeight[k];
+            if (mateEndpoint[u] < 0 && mateEndpoint[v] < 0) {
+                dual = Math.max(dual, w / 2);
+            } else if (mateEndpoint[v] < 0) {
+                dual = Math.max(dual, w - dualVar[u]);
+            } else if (mateEndpoint[u] < 0) {
+                dual = Math.max(dual, w - dualVar[v]);
+            }
+        }
+        return dual == Long.MIN_VALUE ? 0 : maxCardinality ? dual : Math.max(0, dual);
+    }
+
+    /**
+     * Least dual of matched vertex u that keeps its edges but those to its mate m feasible
+     */
+    long lowestDual(int u, int m, long freeDual) {
+        long low = freeDual;
+        for (int i = neighbendOffset[u], end = neighbendOffset[u + 1]; i < end; i++) {
+            int p = neighbend[i];
+            int x = endpoint[p];
+            if (x != m) {
+                long other = mateEndpoint[x] >= 0 ? dualVar[x] : freeDual;
+                low = Math.max(low, 2L * edgeWeight[p / 2] - other);
+            }
+        }
+        return low;
+    }
+
+    void unmatch(int v) {
+        int m = endpoint[mateEndpoint[v]];
+        mateEndpoint[v] = -1;
+        mateEndpoint[m] = -1;
+    }
+
+    /**
+     * Dual of vertex v now, it moves with the label of its top-level blossom
+     */
+    long vertexDual(int v) {
+        int b = inBlossom[v];
+        if (label[b] == 1) {
+            return dualVar[v] - (shift - labelShift[b]);
+        } else if (label[b] == 2) {
+            return dualVar[v] + (shift - labelShift[b]);
+        }
+        return dualVar[v];
+    }
+
+    /**
+     * Dual of blossom b now, only a top-level one moves
+     */
+    long blossomDual(int b) {
+        if (blossomParent[b] == -1) {
+            if (label[b] == 1) {
+                return dualVar[b] + (shift - labelShift[b]);
+            } else if (label[b] == 2) {
+                return dualVar[b] - (shift - labelShift[b]);
+            }
+        }
+        return dualVar[b];
+    }
+
+    /**
+     * Store the duals of the stage and start the next one from shift 0
+     */
+    void commitDuals() {
+        for (int v = 0; v < numNodes; v++) {
+            dualVar[v] = vertexDual(v);
+        }
+        for (int b = numNodes; b < 2 * numNodes; b++) {
+            if (blossomBase[b] >= 0) {
+                dualVar[b] = blossomDual(b);
+            }
+        }
+        shift = 0;
+        Arrays.fill(labelShift, 0, 2 * numNodes, 0);
+    }
+
+    long slack(int k) {
+        return vertexDual(endpoint[2 * k]) + vertexDual(endpoint[2 * k + 1]) - 2L * edgeWeight[k];
+    }
+
+    void enqueue(int v) {
+        if (queueSize == queue.length) {
+            queue = Arrays.copyOf(queue, 2 * queue.length);
+        }
+        queue[queueSize++] = v;
+    }
+
+    /**
+     * Vertices inside blossom b, written to out[start...]
+     *
+     * @return end of the written range
+     */
+    int collectLeaves(int b, int[] out, int start) {
+        int top = 0;
+        leafStack[top++] = b;
+        while (top > 0) {
+            int t = leafStack[--top];
+            if (t < numNodes) {
+                out[start++] = t;
+            } else {
+                int[] childs = blossomChilds[t];
+                for (int i = childs.length - 1; i >= 0; i--) {
+                    leafStack[top++] = childs[i];
+                }
+            }
+        }
+        return start;
+    }
+
+    /**
+     * One stage: look for an augmenting path, moving the duals while none is tight
+     *
+     * @return true if the matching was augmented
+     */
+    boolean runStage() {
+        int size = 2 * numNodes;
+        Arrays.fill(label, 0, size, 0);
+        Arrays.fill(bestEdge, 0, size, -1);
+        Arrays.fill(blossomBestEdges, numNodes, size, null);
+        Arrays.fill(allowEdge, 0, numEdges, false);
+        queueSize = 0;
+        minDualKey = Long.MAX_VALUE;
+        freeSlack.clear();
+        pairSlack.clear();
+        blossomDuals.clear();
+
+        for (int v = 0; v < numNodes; v++) {
+            if (mateEndpoint[v] == -1 && label[inBlossom[v]] == 0) {
+                assignLabel(v, 1, -1);
+            }
+        }
+
+        while (true) {
+            while (queueSize > 0) {
+                int v = queue[--queueSize];
+                int begin = neighbendOffset[v];
+                int end = neighbendOffset[v + 1];
+                if (stats != null) {
+                    stats.edgesScanned += end - begin;
+                }
+
+                for (int i = begin; i < end; i++) {
+                    int p = neighbend[i];
+                    int k = p / 2;
+                    int w = endpoint[p];
+
+                    if (inBlossom[v] == inBlossom[w]) {
+                        continue;
+                    }
+
+                    long kslack = 0;
+                    if (!allowEdge[k]) {
+                        kslack = slack(k);
+                        if (kslack <= 0) {
+                            allowEdge[k] = true;
+                        }
+                    }
+
+                    if (allowEdge[k]) {
+                        if (label[inBlossom[w]] == 0) {
+                            // w is free or matched and unreached, label it T
+                            assignLabel(w, 2, p ^ 1);
+                        } else if (label[inBlossom[w]] == 1) {
+                            int base = scanBlossom(v, w);
+                            if (base >= 0) {
+                                addBlossom(base, k);
+                            } else {
+                                augmentMatching(k);
+                                return true;
+                            }
+                        } else if (label[w] == 0) {
+                            // w is inside a T-blossom but not yet reached from outside
+                            label[w] = 2;
+                            labelEnd[w] = p ^ 1;
+                        }
+                    } else if (label[inBlossom[w]] == 1) {
+                        int b = inBlossom[v];
+                        if (bestEdge[b] == -1 || kslack < slack(bestEdge[b])) {
+                            bestEdge[b] = k;
+                            pairSlack.set(b, kslack + 2 * shift);
+                        }
+                    } else if (label[w] == 0) {
+                        if (bestEdge[w] == -1 || kslack < slack(bestEdge[w])) {
+                            bestEdge[w] = k;
+                            if (label[inBlossom[w]] == 0) {
+                                // inside a T-blossom it counts once the blossom is expanded
+                                freeSlack.set(w, kslack + shift);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // no tight edge left, compute the dual step
+            int deltaType = -1;
+            long delta = 0;
+            int deltaEdge = -1;
+            int deltaBlossom = -1;
+
+            // 1: a single vertex dual reaches 0, the free ones are the least and S
+            if (!maxCardinality) {
+                deltaType = 1;
+                delta = minDualKey - shift;
+            }
+
+            // 2: an edge from an S-vertex to a free vertex becomes tight
+            while (!freeSlack.isEmpty()) {
+                int v = freeSlack.top();
+                if (label[inBlossom[v]] == 0 && bestEdge[v] != -1) {
+                    long d = freeSlack.topKey() - shift;
+                    if (deltaType == -1 || d < delta) {
+                        delta = d;
+                        deltaType = 2;
+                        deltaEdge = bestEdge[v];
+                    }
+                    break;
+                }
+                freeSlack.pop();
+            }
+
+            // 3: an edge between two S-blossoms becomes tight
+            while (!pairSlack.isEmpty()) {
+                int b = pairSlack.top();
+                if (blossomParent[b] == -1 && label[b] == 1 && bestEdge[b] != -1) {
+                    long d = (pairSlack.topKey() - 2 * shift) / 2;
+                    if (deltaType == -1 || d < delta) {
+                        delta = d;
+                        deltaType = 3;
+                        deltaEdge = bestEdge[b];
+                    }
+                    break;
+                }
+                pairSlack.pop();
+            }
+
+            // 4: a T-blossom dual reaches 0
+            while (!blossomDuals.isEmpty()) {
+                int b = blossomDuals.top();
+                if (blossomBase[b] >= 0 && blossomParent[b] == -1 && label[b] == 2) {
+                    long d = blossomDuals.topKey() - shift;
+                    if (deltaType == -1 || d < delta) {
+                        delta = d;
+                        deltaType = 4;
+                        deltaBlossom = b;
+                    }
+                    break;
+                }
+                blossomDuals.pop();
+            }
+
+            if (deltaType == -1) {
+                // only with maxCardinality: no further improvement possible, finish with
+                // a step that keeps the duals optimal
+                deltaType = 1;
+                delta = Math.max(0, minDualKey - shift);
+            }
+
+            shift += delta;
+
+            if (deltaType == 1) {
+                // optimum reached
+                return false;
+            } else if (deltaType == 2) {
+                allowEdge[deltaEdge] = true;
+                int i = endpoint[2 * deltaEdge];
+                if (label[inBlossom[i]] == 0) {
+                    i = endpoint[2 * deltaEdge + 1];
+                }
+                enqueue(i);
+            } else if (deltaType == 3) {
+                allowEdge[deltaEdge] = true;
+                enqueue(endpoint[2 * deltaEdge]);
+            } else {
+                expandBlossom(deltaBlossom, false);
+            }
+        }
+    }
+
+    /**
+     * Label the top-level blossom of w with t through endpoint p, a T label also labels
+     * the mate of the base S
+     */
+    void assignLabel(int w, int t, int p) {
+        while (true) {
+            int b = inBlossom[w];
+            label[w] = label[b] = t;
+            labelEnd[w] = labelEnd[b] = p;
+            bestEdge[w] = bestEdge[b] = -1;
+            // the duals of b start moving
+            labelShift[b] = shift;
+
+            if (t == 1) {
+                // all vertices of b get scanned
+                if (queue.length < queueSize + numNodes) {
+                    queue = Arrays.copyOf(queue, Math.max(2 * queue.length, queueSize + numNodes));
+                }
+                int first = queueSize;
+                queueSize = collectLeaves(b, queue, queueSize);
+                for (int i = first; i < queueSize; i++) {
+                    minDualKey = Math.min(minDualKey, dualVar[queue[i]] + shift);
+                }
+                return;
+            }
+            if (b >= numNodes) {
+                blossomDuals.set(b, dualVar[b] + shift);
+            }
+
+            int base = blossomBase[b];
+            w = endpoint[mateEndpoint[base]];
+            t = 1;
+            p = mateEndpoint[base] ^ 1;
+        }
+    }
+
+    /**
+     * Trace back from v and w alternately to find a new blossom or an augmenting path
+     *
+     * @return base of the new blossom, -1 if the paths end at different single vertices
+     */
+    int scanBlossom(int v, int w) {
+        int pathLength = 0;
+        int base = -1;
+
+        while (v != -1) {
+            int b = inBlossom[v];
+            if ((label[b] & 4) != 0) {
+                base = blossomBase[b];
+                break;
+            }
+
+            leaves[pathLength++] = b;
+            label[b] = 5; // breadcrumb
+
+            if (labelEnd[b] == -1) {
+                // base of b is single, stop tracing this path
+                v = -1;
+            } else {
+                v = endpoint[labelEnd[b]];
+                b = inBlossom[v];
+                v = endpoint[labelEnd[b]];
+            }
+
+            if (w != -1) {
+                int swap = v;
+                v = w;
+                w = swap;
+            }
+        }
+
+        for (int i = 0; i < pathLength; i++) {
+            label[leaves[i]] = 1;
+        }
+        return base;
+    }
+
+    /**
+     * Construct a new blossom with the given base, closed by edge k between two S-vertices
+     */
+    void addBlossom(int base, int k) {
+        int v = endpoint[2 * k];
+        int w = endpoint[2 * k + 1];
+        int bb = inBlossom[base];
+        int bv = inBlossom[v];
+        int bw = inBlossom[w];
+
+        int b = unusedBlossoms[--numUnusedBlossoms];
+        blossomBase[b] = base;
+        blossomParent[b] = -1;
+        commitBlossomDual(bb);
+        blossomParent[bb] = b;
+
+        // count the sub-blossoms first, then fill both halves of the cycle in place
+        int sideV = 0;
+        for (int t = bv; t != bb; t = inBlossom[endpoint[labelEnd[t]]]) {
+            sideV++;
+        }
+        int sideW = 0;
+        for (int t = bw; t != bb; t = inBlossom[endpoint[labelEnd[t]]]) {
+            sideW++;
+        }
+
+        int length = 1 + sideV + sideW;
+        int[] childs = new int[length];
+        int[] endps = new int[length];
+        childs[0] = bb;
+
+        // path from v back to the base, stored reversed
+        int i = sideV;
+        while (bv != bb) {
+            commitBlossomDual(bv);
+            blossomParent[bv] = b;
+            childs[i] = bv;
+            endps[i - 1] = labelEnd[bv];
+            v = endpoint[labelEnd[bv]];
+            bv = inBlossom[v];
+            i--;
+        }
+        endps[sideV] = 2 * k;
+
+        // path from w back to the base
+        i = sideV + 1;
+        while (bw != bb) {
+            commitBlossomDual(bw);
+            blossomParent[bw] = b;
+            childs[i] = bw;
+            endps[i] = labelEnd[bw] ^ 1;
+            w = endpoint[labelEnd[bw]];
+            bw = inBlossom[w];
+            i++;
+        }
+
+        blossomChilds[b] = childs;
+        blossomEndps[b] = endps;
+
+        label[b] = 1;
+        labelEnd[b] = labelEnd[bb];
+        dualVar[b] = 0;
+
+        // relabel vertices, T-vertices turn S and have to be scanned; all of them move with
+        // b from now on
+        int numLeaves = collectLeaves(b, leaves, 0);
+        for (i = 0; i < numLeaves; i++) {
+            int x = leaves[i];
+            dualVar[x] = vertexDual(x);
+            if (label[inBlossom[x]] == 2) {
+                enqueue(x);
+                minDualKey = Math.min(minDualKey, dualVar[x] + shift);
+            }
+            inBlossom[x] = b;
+        }
+        labelShift[b] = shift;
+
+        if (stats != null) {
+            int depth = 0;
+            for (int c : childs) {
+                depth = Math.max(depth, blossomDepth[c]);
+            }
+            blossomDepth[b] = depth + 1;
+            stats.blossoms++;
+            stats.blossomNodes += numLeaves;
+            stats.maxBlossomDepth = Math.max(stats.maxBlossomDepth, depth + 1);
+        }
+
+        // least-slack edges from the new blossom to every other S-blossom
+        int numUsed = 0;
+        for (int c = 0; c < length; c++) {
+            int sub = childs[c];
+            int[] subBest = blossomBestEdges[sub];
+
+            if (subBest == null) {
+                // no list, get the information from the vertices
+                int n = collectLeaves(sub, leaves, 0);
+                for (int l = 0; l < n; l++) {
+                    int x = leaves[l];
+                    for (int e = neighbendOffset[x], end = neighbendOffset[x + 1]; e < end; e++) {
+                        numUsed = considerBestEdge(b, neighbend[e] / 2, numUsed);
+                    }
+                }
+            } else {
+                for (int edge : subBest) {
+                    numUsed = considerBestEdge(b, edge, numUsed);
+                }
+            }
+
+            blossomBestEdges[sub] = null;
+            bestEdge[sub] = -1;
+        }
+
+        int[] best = new int[numUsed];
+        bestEdge[b] = -1;
+        for (i = 0; i < numUsed; i++) {
+            int bj = bestEdgeToUsed[i];
+            best[i] = bestEdgeTo[bj];
+            bestEdgeTo[bj] = -1;
+            if (bestEdge[b] == -1 || slack(best[i]) < slack(bestEdge[b])) {
+                bestEdge[b] = best[i];
+            }
+        }
+        blossomBestEdges[b] = best;
+        if (bestEdge[b] != -1) {
+            pairSlack.set(b, slack(bestEdge[b]) + 2 * shift);
+        }
+    }
+
+    /**
+     * Store the dual of top-level blossom b before it goes into a new one
+     */
+    void commitBlossomDual(int b) {
+        if (b >= numNodes) {
+            dualVar[b] = blossomDual(b);
+        }
+    }
+
+    private int considerBestEdge(int b, int k, int numUsed) {
+        int j = endpoint[2 * k + 1];
+        if (inBlossom[j] == b) {
+            j = endpoint[2 * k];
+        }
+        int bj = inBlossom[j];
+
+        if (bj != b && label[bj] == 1) {
+            if (bestEdgeTo[bj] == -1) {
+                bestEdgeToUsed[numUsed++] = bj;
+                bestEdgeTo[bj] = k;
+            } else if (slack(k) < slack(bestEdgeTo[bj])) {
+                bestEdgeTo[bj] = k;
+            }
+        }
+        return numUsed;
+    }
+
+    /**
+     * Index of child in the cycle of blossom b
+     */
+    private int childIndex(int b, int child) {
+        int[] childs = blossomChilds[b];
+        for (int i = 0; i < childs.length; i++) {
+            if (childs[i] == child) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Blossom " + b + " has no child " + child);
+    }
+
+    /**
+     * Cycle index, negative indices count from the end
+     */
+    private static int at(int[] cycle, int j) {
+        return cycle[j >= 0 ? j : j + cycle.length];
+    }
+
+    /**
+     * Expand blossom b back into its sub-blossoms
+     *
+     * @param endStage true at the end of a stage, the labels are then not needed
+     */
+    void expandBlossom(int b, boolean endStage) {
+        int[] childs = blossomChilds[b];
+        int[] endps = blossomEndps[b];
+
+        if (!endStage) {
+            // the vertices stop moving with b
+            int n = collectLeaves(b, leaves, 0);
+            for (int i = 0; i < n; i++) {
+                dualVar[leaves[i]] = vertexDual(leaves[i]);
+            }
+        }
+
+        for (int s : childs) {
+            blossomParent[s] = -1;
+            if (s < numNodes) {
+                inBlossom[s] = s;
+            } else if (endStage && dualVar[s] == 0) {
+                expandBlossom(s, true);
+            } else {
+                int n = collectLeaves(s, leaves, 0);
+                for (int i = 0; i < n; i++) {
+                    inBlossom[leaves[i]] = s;
+                }
+            }
+        }
+
+        if (!endStage && label[b] == 2) {
+            // relabel the sub-blossoms from the one that took the label, round to the base
+            int entryChild = inBlossom[endpoint[labelEnd[b] ^ 1]];
+            int j = childIndex(b, entryChild);
+            int jStep;
+            int endpTrick;
+            if ((j & 1) != 0) {
+                // odd start index, go forward and wrap
+                j -= childs.length;
+                jStep = 1;
+                endpTrick = 0;
+            } else {
+                // even start index, go backward
+                jStep = -1;
+                endpTrick = 1;
+            }
+
+            int p = labelEnd[b];
+            while (j != 0) {
+                // relabel the T-sub-blossom
+                label[endpoint[p ^ 1]] = 0;
+                label[endpoint[at(endps, j - endpTrick) ^ endpTrick ^ 1]] = 0;
+                assignLabel(endpoint[p ^ 1], 2, p);
+                // step to the next S-sub-blossom and note its forward endpoint
+                allowEdge[at(endps, j - endpTrick) / 2] = true;
+                j += jStep;
+                p = at(endps, j - endpTrick) ^ endpTrick;
+                // step to the next T-sub-blossom
+                allowEdge[p / 2] = true;
+                j += jStep;
+            }
+
+            // relabel the base T-sub-blossom without stepping through to its mate
+            int bv = at(childs, j);
+            label[endpoint[p ^ 1]] = label[bv] = 2;
+            labelEnd[endpoint[p ^ 1]] = labelEnd[bv] = p;
+            bestEdge[bv] = -1;
+            labelShift[bv] = shift;
+            if (bv >= numNodes) {
+                blossomDuals.set(bv, dualVar[bv] + shift);
+            }
+
+            // the rest of the cycle back to the entry child
+            j += jStep;
+            while (at(childs, j) != entryChild) {
+                bv = at(childs, j);
+                if (label[bv] == 1) {
+                    // got label S through one of its neighbors already
+                    j += jStep;
+                    continue;
+                }
+
+                // a vertex reached from an S-vertex outside the expanding blossom makes bv T
+                int reached = -1;
+                int n = collectLeaves(bv, leaves, 0);
+                for (int i = 0; i < n; i++) {
+                    if (label[leaves[i]] != 0) {
+                        reached = leaves[i];
+                        break;
+                    }
+                }
+                if (reached != -1) {
+                    label[reached] = 0;
+                    label[endpoint[mateEndpoint[blossomBase[bv]]]] = 0;
+                    assignLabel(reached, 2, labelEnd[reached]);
+                }
+                j += jStep;
+            }
+
+            // vertices left free count for delta 2 again
+            for (int s : childs) {
+                if (label[s] != 0) {
+                    continue;
+                }
+                int n = collectLeaves(s, leaves, 0);
+                for (int i = 0; i < n; i++) {
+                    int x = leaves[i];
+                    if (bestEdge[x] != -1) {
+                        freeSlack.set(x, slack(bestEdge[x]) + shift);
+                    }
+                }
+            }
+        }
+
+        // recycle the blossom number
+        label[b] = labelEnd[b] = -1;
+        blossomChilds[b] = blossomEndps[b] = null;
+        blossomBase[b] = -1;
+        blossomBestEdges[b] = null;
+        bestEdge[b] = -1;
+        unusedBlossoms[numUnusedBlossoms++] = b;
+    }
+
+    /**
+     * Swap matched and unmatched edges on the even path from vertex v to the base of
+     * blossom b, v becomes the new base
+     */
+    void augmentBlossom(int b, int v) {
+        // bubble up from v to an immediate sub-blossom of b
+        int t = v;
+        while (blossomParent[t] != b) {
+            t = blossomParent[t];
+        }
+        if (t >= numNodes) {
+            augmentBlossom(t, v);
+        }
+
+        int[] childs = blossomChilds[b];
+        int[] endps = blossomEndps[b];
+        int i = childIndex(b, t);
+        int j = i;
+        int jStep;
+        int endpTrick;
+        if ((i & 1) != 0) {
+            j -= childs.length;
+            jStep = 1;
+            endpTrick = 0;
+        } else {
+            jStep = -1;
+            endpTrick = 1;
+        }
+
+        while (j != 0) {
+            j += jStep;
+            t = at(childs, j);
+            int p = at(endps, j - endpTrick) ^ endpTrick;
+            if (t >= numNodes) {
+                augmentBlossom(t, endpoint[p]);
+            }
+            j += jStep;
+            t = at(childs, j);
+            if (t >= numNodes) {
+                augmentBlossom(t, endpoint[p ^ 1]);
+            }
+            mateEndpoint[endpoint[p]] = p ^ 1;
+            mateEndpoint[endpoint[p ^ 1]] = p;
+        }
+
+        // rotate the cycle to put the new base first
+        rotate(childs, i);
+        rotate(endps, i);
+        blossomBase[b] = blossomBase[childs[0]];
+    }
+
+    private static void rotate(int[] cycle, int first) {
+        if (first == 0) {
+            return;
+        }
+        int[] copy = Arrays.copyOf(cycle, cycle.length);
+        for (int i = 0; i < cycle.length; i++) {
+            cycle[i] = copy[(i + first) % cycle.length];
+        }
+    }
+
+    /**
+     * Swap matched and unmatched edges along the augmenting path through edge k
+     */
+    void augmentMatching(int k) {
+        for (int side = 0; side < 2; side++) {
+            int s = endpoint[2 * k + side];
+            int p = 2 * k + 1 - side;
+
+            while (true) {
+                int bs = inBlossom[s];
+                if (bs >= numNodes) {
+                    augmentBlossom(bs, s);
+                }
+                mateEndpoint[s] = p;
+
+                if (labelEnd[bs] == -1) {
+                    // reached a single vertex
+                    break;
+                }
+
+                int t = endpoint[labelEnd[bs]];
+                int bt = inBlossom[t];
+                s = endpoint[labelEnd[bt]];
+                int j = endpoint[labelEnd[bt] ^ 1];
+                if (bt >= numNodes) {
+                    augmentBlossom(bt, j);
+                }
+                mateEndpoint[j] = labelEnd[bt];
+                p = labelEnd[bt] ^ 1;
+            }
+        }
+    }
+
+    /**
+     * Binary min-heap of ids 0 ... capacity - 1 by long keys, each id at most once
+     */
+    static final class SlackHeap {
+        final int[] heap;
+        // position of an id in heap, -1 if it is not in it
+        final int[] position;
+        final long[] key;
+        int size;
+
+        SlackHeap(int capacity) {
+            heap = new int[capacity];
+            position = new int[capacity];
+            key = new long[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                position[heap[i]] = -1;
+            }
+            size = 0;
+        }
+
+        int top() {
+            return heap[0];
+        }
+
+        long topKey() {
+            return key[heap[0]];
+        }
+
+        /**
+         * Add id, or move it to its new key
+         */
+        void set(int id, long k) {
+            int i = position[id];
+            if (i < 0) {
+                i = size++;
+                heap[i] = id;
+                position[id] = i;
+                key[id] = k;
+                siftUp(i);
+            } else if (k < key[id]) {
+                key[id] = k;
+                siftUp(i);
+            } else {
+                key[id] = k;
+                siftDown(i);
+            }
+        }
+
+        void pop() {
+            position[heap[0]] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+        }
+
+        void siftUp(int i) {
+            int id = heap[i];
+            long k = key[id];
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                int up = heap[parent];
+                if (key[up] <= k) {
+                    break;
+                }
+                heap[i] = up;
+                position[up] = i;
+                i = parent;
+            }
+            heap[i] = id;
+            position[id] = i;
+        }
+
+        void siftDown(int i) {
+            int id = heap[i];
+            long k = key[id];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+                    child++;
+                }
+                int down = heap[child];
+                if (key[down] >= k) {
+                    break;
+                }
+                heap[i] = down;
+                position[down] = i;
+                i = child;
+            }
+            heap[i] = id;
+            position[id] = i;
+        }
+    }
+}